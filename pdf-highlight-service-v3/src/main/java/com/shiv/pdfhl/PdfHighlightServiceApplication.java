@@ -2,8 +2,10 @@ package com.shiv.pdfhl;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class PdfHighlightServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(PdfHighlightServiceApplication.class, args);
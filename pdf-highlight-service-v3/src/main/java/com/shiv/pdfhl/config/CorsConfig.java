@@ -14,9 +14,9 @@ public class CorsConfig {
       public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
             .allowedOrigins("http://localhost:5173", "http://127.0.0.1:5173")
-            .allowedMethods("GET","POST","OPTIONS")
+            .allowedMethods("GET","POST","DELETE","OPTIONS")
             .allowedHeaders("*")
-            .exposedHeaders("Content-Disposition","X-Doc-Load-ms","X-Render-ms","X-Boxes-ms")
+            .exposedHeaders("Content-Disposition","ETag","X-Doc-Load-ms","X-Render-ms","X-Boxes-ms","X-Doc-Hash","X-Layer-ms","Location","Accept-Ranges","Content-Range")
             .allowCredentials(true)
             .maxAge(3600);
       }
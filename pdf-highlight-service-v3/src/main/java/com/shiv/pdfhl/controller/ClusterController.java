@@ -0,0 +1,45 @@
+package com.shiv.pdfhl.controller;
+
+import com.shiv.pdfhl.dto.ClusterSearchRequest;
+import com.shiv.pdfhl.dto.ClusterSearchResponse;
+import com.shiv.pdfhl.service.ClusterMembership;
+import com.shiv.pdfhl.service.ClusterSearchService;
+import com.shiv.pdfhl.service.Deadline;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cluster")
+@RequiredArgsConstructor
+public class ClusterController {
+
+    private final ClusterSearchService clusterService;
+    private final ClusterMembership membership;
+
+    @Value("${app.deadline.default-ms:30000}")
+    private long defaultDeadlineMs;
+
+    @PostMapping(value = "/search", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ClusterSearchResponse search(
+            @Valid @RequestBody ClusterSearchRequest request,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
+    ) {
+        return clusterService.search(request, Deadline.of(deadlineMs, defaultDeadlineMs));
+    }
+
+    @GetMapping(value = "/nodes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> nodes() {
+        return Map.of("self", membership.self(), "live", membership.ring().nodes());
+    }
+
+    @GetMapping(value = "/owners", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<String> owners(@RequestParam("fileName") String fileName) {
+        return membership.ring().owners(fileName, 2);
+    }
+}
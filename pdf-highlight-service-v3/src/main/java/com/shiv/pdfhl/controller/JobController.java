@@ -0,0 +1,74 @@
+package com.shiv.pdfhl.controller;
+
+import com.shiv.pdfhl.dto.ExtractRequest;
+import com.shiv.pdfhl.dto.JobStatus;
+import com.shiv.pdfhl.service.JobService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private static final String TENANT_HEADER = "X-Tenant-Id";
+
+    private final JobService jobs;
+
+    @PostMapping(value = "/search", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<JobStatus> submitSearch(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @Valid @RequestBody ExtractRequest request
+    ) {
+        return accepted(jobs.submit(tenant, JobService.KIND_SEARCH, request));
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public JobStatus status(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @PathVariable("id") String id
+    ) {
+        return jobs.status(tenant, id);
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @PathVariable("id") String id
+    ) {
+        return jobs.subscribe(tenant, id);
+    }
+
+    // Served as a Resource so Range requests can resume interrupted downloads.
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Resource> result(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @PathVariable("id") String id
+    ) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new FileSystemResource(jobs.result(tenant, id)));
+    }
+
+    @DeleteMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public JobStatus cancel(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @PathVariable("id") String id
+    ) {
+        return jobs.cancel(tenant, id);
+    }
+
+    private static ResponseEntity<JobStatus> accepted(JobStatus status) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + status.getId()))
+                .body(status);
+    }
+}
@@ -3,11 +3,20 @@ package com.shiv.pdfhl.controller;
 import com.shiv.pdfhl.dto.ExtractRequest;
 import com.shiv.pdfhl.dto.ExtractResponse;
 import com.shiv.pdfhl.dto.Rect;
+import com.shiv.pdfhl.dto.SnippetImageRequest;
+import com.shiv.pdfhl.dto.SnippetImagesResponse;
+import com.shiv.pdfhl.service.AccessLog;
+import com.shiv.pdfhl.service.Deadline;
 import com.shiv.pdfhl.service.MatchBoxService;
 import com.shiv.pdfhl.service.PdfPageImageService;
+import com.shiv.pdfhl.service.SnippetImageService;
+import com.shiv.pdfhl.service.TextLayerService;
 import com.shiv.pdfhl.service.TextSearchService;
+import com.shiv.pdfhl.util.QueryPattern;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,29 +28,85 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SearchController {
 
+    private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
     private final TextSearchService textService;
     private final PdfPageImageService imageService;
     private final MatchBoxService boxService;
+    private final TextLayerService layerService;
+    private final SnippetImageService snippetService;
+    private final AccessLog accessLog;
+
+    @Value("${app.deadline.default-ms:30000}")
+    private long defaultDeadlineMs;
 
-    @PostMapping(value = "/search", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ExtractResponse search(@Valid @RequestBody ExtractRequest request) {
-        return textService.search(request);
+    @PostMapping(value = "/search", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ExtractResponse search(
+            @Valid @RequestBody ExtractRequest request,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
+    ) {
+        ExtractResponse response = textService.search(request, Deadline.of(deadlineMs, defaultDeadlineMs));
+        accessLog.record(request.getFileName());
+        return response;
+    }
+
+    @GetMapping(value = "/page-markdown", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String pageMarkdown(
+            @RequestParam("fileName") String fileName,
+            @RequestParam("page") int page,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
+    ) {
+        return textService.pageMarkdown(fileName, page, Deadline.of(deadlineMs, defaultDeadlineMs));
     }
 
     @GetMapping(value = "/page-image", produces = MediaType.IMAGE_PNG_VALUE)
     public ResponseEntity<byte[]> pageImage(
             @RequestParam("fileName") String fileName,
-            @RequestParam("page") int page
+            @RequestParam("page") int page,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
     ) {
-        return imageService.renderPageAsPngResponse(fileName, page);
+        ResponseEntity<byte[]> response = imageService.renderPageAsPngResponse(fileName, page,
+                Deadline.of(deadlineMs, defaultDeadlineMs));
+        accessLog.record(fileName);
+        return response;
+    }
+
+    // Batched crops around the hits of one result page, rendered from the clip region only.
+    @PostMapping(value = "/snippet-images", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public SnippetImagesResponse snippetImages(
+            @Valid @RequestBody SnippetImageRequest request,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
+    ) {
+        SnippetImagesResponse response = snippetService.render(request, Deadline.of(deadlineMs, defaultDeadlineMs));
+        accessLog.record(request.getFileName());
+        return response;
     }
 
     @GetMapping(value = "/page-matches", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<List<Rect>> pageMatches(
             @RequestParam("fileName") String fileName,
             @RequestParam("query") String query,
-            @RequestParam("page") int page
+            @RequestParam(value = "mode", defaultValue = QueryPattern.LITERAL) String mode,
+            @RequestParam("page") int page,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
+    ) {
+        ResponseEntity<List<Rect>> response = boxService.getMatchBoxesResponse(fileName, query, mode, page,
+                Deadline.of(deadlineMs, defaultDeadlineMs));
+        accessLog.record(fileName);
+        return response;
+    }
+
+    @GetMapping(value = "/text-layer", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> textLayer(
+            @RequestParam("fileName") String fileName,
+            @RequestParam("page") int page,
+            @RequestParam(value = "v", required = false) String version,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
     ) {
-        return boxService.getMatchBoxesResponse(fileName, query, page);
+        return layerService.getTextLayerResponse(fileName, page, version, ifNoneMatch,
+                Deadline.of(deadlineMs, defaultDeadlineMs));
     }
 }
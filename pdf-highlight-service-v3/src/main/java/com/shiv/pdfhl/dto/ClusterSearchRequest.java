@@ -0,0 +1,27 @@
+package com.shiv.pdfhl.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ClusterSearchRequest {
+    @NotEmpty
+    @Size(max = 100)
+    private List<@NotBlank String> fileNames;   // each document is one shard call
+    @NotBlank
+    private String query;
+    @Pattern(regexp = "literal|regex|wildcard")
+    private String mode = "literal";
+    @Pattern(regexp = "counts|snippets|full")
+    private String fields = "counts";
+    private boolean ranked = false;   // BM25 within each document, merged on scores divided by each document's maximum
+    @Min(1) @Max(100)
+    private int topK = 10;            // ranked mode only, applied per shard and to the merged list
+}
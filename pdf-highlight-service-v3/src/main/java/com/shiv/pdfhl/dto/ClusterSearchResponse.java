@@ -0,0 +1,18 @@
+package com.shiv.pdfhl.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ClusterSearchResponse {
+    private String query;
+    private int documents;
+    private int matchedPages;
+    private List<PageHit> pages;
+    private List<ShardStatus> shards;
+    private boolean partial;   // some shard failed, timed out or answered partially
+    private long totalMs;
+}
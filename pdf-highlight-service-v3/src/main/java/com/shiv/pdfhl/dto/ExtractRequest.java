@@ -1,6 +1,9 @@
 package com.shiv.pdfhl.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 @Data
@@ -9,4 +12,14 @@ public class ExtractRequest {
     private String fileName;
     @NotBlank
     private String query;
+    @Pattern(regexp = "literal|regex|wildcard")
+    private String mode = "literal";  // regex and wildcard queries run on a linear-time automaton
+    @Pattern(regexp = "counts|snippets|full")
+    private String fields = "full";   // what each PageHit carries besides page number and count
+    private boolean ranked = false;   // BM25 relevance order instead of page order
+    @Min(1) @Max(100)
+    private int topK = 10;            // ranked mode only
+    @Min(1) @Max(1000)
+    private Integer limit;            // page-order mode: hits per response, all when unset
+    private String pageToken;         // nextPageToken from a previous response
 }
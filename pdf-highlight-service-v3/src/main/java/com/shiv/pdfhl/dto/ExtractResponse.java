@@ -1,12 +1,17 @@
 package com.shiv.pdfhl.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ExtractResponse {
     private String fileName;
     private String query;
@@ -17,4 +22,11 @@ public class ExtractResponse {
     private long scanMs;
     private int pagesScanned;
     private int parallelism;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextPageToken;
+    private boolean partial;   // the request deadline expired before every page was extracted
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Integer> unscannedPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Float maxScore;    // ranked mode: the highest score any page of this document could reach
 }
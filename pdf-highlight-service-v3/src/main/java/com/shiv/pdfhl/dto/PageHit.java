@@ -1,12 +1,21 @@
 package com.shiv.pdfhl.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PageHit {
+    private String fileName;          // cluster search only
     private int pageNumber;
-    private String pageMarkdown;
+    private String pageMarkdown;      // fields=full only
+    private String snippetMarkdown;   // fields=snippets only
     private int occurrences;
+    private Float score;              // ranked mode only
 }
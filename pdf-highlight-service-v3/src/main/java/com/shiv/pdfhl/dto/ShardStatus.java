@@ -0,0 +1,19 @@
+package com.shiv.pdfhl.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShardStatus {
+    private String fileName;
+    private String owner;      // node the ring assigned the document to
+    private String servedBy;   // node whose answer was used, differs from owner when the hedge won
+    private long ms;
+    private String error;
+    private List<Integer> unscannedPages;
+}
@@ -0,0 +1,20 @@
+package com.shiv.pdfhl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnippetImage {
+    private int pageNumber;
+    private int match;                // 0-based match index on the page
+    private Rect clip;                // cropped area in page points, top-left origin
+    private List<Rect> highlights;    // match boxes in crop pixels
+    private byte[] png;               // base64 in JSON, raw bytes in CBOR and Smile
+}
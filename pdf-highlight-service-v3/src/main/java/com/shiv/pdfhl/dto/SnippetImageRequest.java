@@ -0,0 +1,29 @@
+package com.shiv.pdfhl.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SnippetImageRequest {
+    @NotBlank
+    private String fileName;
+    @NotBlank
+    private String query;
+    @Pattern(regexp = "literal|regex|wildcard")
+    private String mode = "literal";
+    @NotEmpty @Size(max = 50)
+    private List<Integer> pages;      // the pages shown on one page of results
+    @Min(36) @Max(300)
+    private int dpi = 144;
+    @Min(0) @Max(144)
+    private int padding = 24;         // points of context around the match on every side
+    @Min(1) @Max(20)
+    private int maxPerPage = 3;       // crops per page, in reading order
+}
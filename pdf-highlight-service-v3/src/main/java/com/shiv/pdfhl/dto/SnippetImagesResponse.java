@@ -0,0 +1,18 @@
+package com.shiv.pdfhl.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class SnippetImagesResponse {
+    private String fileName;
+    private String query;
+    private int dpi;
+    private List<SnippetImage> snippets;
+    private long docLoadMs;
+    private long renderMs;
+    private boolean partial;          // the request deadline expired before every crop was rendered
+}
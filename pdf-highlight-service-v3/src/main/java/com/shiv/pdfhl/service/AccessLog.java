@@ -0,0 +1,78 @@
+package com.shiv.pdfhl.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-document request counts, persisted as {@code count<TAB>fileName} lines so warm-up
+ * can preload the most requested documents after a restart.
+ */
+@Slf4j
+@Service
+public class AccessLog {
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    @Value("${app.warmup.access-log:./access-log.tsv}")
+    private String path;
+
+    @PostConstruct
+    void load() {
+        Path file = Path.of(path);
+        if (!Files.isRegularFile(file)) return;
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) continue;
+                counts.computeIfAbsent(line.substring(tab + 1), k -> new LongAdder())
+                        .add(Long.parseLong(line.substring(0, tab)));
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable access log {}: {}", file, e.getMessage());
+        }
+    }
+
+    public void record(String fileName) {
+        if (fileName.indexOf('\t') >= 0 || fileName.indexOf('\n') >= 0) return;
+        counts.computeIfAbsent(fileName, k -> new LongAdder()).increment();
+    }
+
+    /** Most requested file names, most popular first. */
+    public List<String> top(int n) {
+        List<Map.Entry<String, LongAdder>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed());
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < Math.min(n, entries.size()); i++) out.add(entries.get(i).getKey());
+        return out;
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.warmup.access-log-flush-ms:60000}")
+    public void flush() {
+        StringBuilder sb = new StringBuilder();
+        counts.forEach((name, n) -> sb.append(n.sum()).append('\t').append(name).append('\n'));
+        Path file = Path.of(path).toAbsolutePath();
+        try {
+            Path tmp = Files.createTempFile(file.getParent(), "access-log", ".tmp");
+            Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("Access log flush to {} failed: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.shiv.pdfhl.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * BM25 page ranking with a multi-term proximity bonus.
+ * Term frequencies come from the document's word postings, so only pages containing a query term are scored.
+ * Pages are visited in descending order of their score upper bound, and only those that can still enter
+ * the top-K heap are tokenized for the proximity bonus.
+ */
+final class Bm25Ranker {
+
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+    static final float PROXIMITY_WEIGHT = 0.5f;
+
+    private final String[] terms;
+    private final Map<String, Integer> termIndex = new LinkedHashMap<>();
+
+    Bm25Ranker(String query) {
+        for (String t : tokenize(query)) termIndex.putIfAbsent(t, termIndex.size());
+        if (termIndex.isEmpty()) throw new IllegalArgumentException("Query has no searchable terms.");
+        this.terms = termIndex.keySet().toArray(new String[0]);
+    }
+
+    static final class PageStats {
+        final int page;
+        final int length;
+        final int[] tf;
+        int[][] positions;   // token positions per term, only for pages tokenized for proximity
+        float bm25;
+        float bound;
+        float score;
+
+        PageStats(int page, int length, int termCount) {
+            this.page = page;
+            this.length = length;
+            this.tf = new int[termCount];
+        }
+
+        int occurrences() {
+            int n = 0;
+            for (int f : tf) n += f;
+            return n;
+        }
+    }
+
+    static final class Result {
+        final List<PageStats> ranked;
+        final int candidates;
+        final int tokenized;
+        final float maxScore;   // no page of this document can score higher
+
+        Result(List<PageStats> ranked, int candidates, int tokenized, float maxScore) {
+            this.ranked = ranked;
+            this.candidates = candidates;
+            this.tokenized = tokenized;
+            this.maxScore = maxScore;
+        }
+    }
+
+    /** Token positions of every query term on one page. */
+    int[][] positions(String text) {
+        int[][] pos = new int[terms.length][];
+        int[] sizes = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) pos[i] = new int[4];
+
+        int tokenNo = 0;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i == start) break;
+            Integer t = termIndex.get(text.substring(start, i).toLowerCase(Locale.ROOT));
+            if (t != null) {
+                if (sizes[t] == pos[t].length) pos[t] = Arrays.copyOf(pos[t], sizes[t] * 2);
+                pos[t][sizes[t]++] = tokenNo;
+            }
+            tokenNo++;
+        }
+
+        for (int t = 0; t < terms.length; t++) pos[t] = Arrays.copyOf(pos[t], sizes[t]);
+        return pos;
+    }
+
+    /** Scores the pages of {@code index} that contain a query term and returns the best {@code limit}, best first. */
+    Result rank(TrigramIndex index, int limit) {
+        int totalPages = index.pageCount();
+        float avgLength = Math.max(1f, index.averageTokenCount());
+        float[] idf = new float[terms.length];
+        Map<Integer, PageStats> byPage = new HashMap<>();
+        for (int t = 0; t < terms.length; t++) {
+            int[] postings = index.termPostings(terms[t]);
+            int df = postings.length / 2;
+            idf[t] = (float) Math.log(1 + (totalPages - df + 0.5) / (df + 0.5));
+            for (int i = 0; i < postings.length; i += 2) {
+                byPage.computeIfAbsent(postings[i], p -> new PageStats(p, index.tokenCount(p), terms.length))
+                        .tf[t] = postings[i + 1];
+            }
+        }
+        // tf (K1 + 1) / (tf + norm) stays below K1 + 1, and proximity below 1
+        float maxScore = terms.length > 1 ? PROXIMITY_WEIGHT : 0;
+        for (float f : idf) maxScore += f * (K1 + 1);
+
+        List<PageStats> candidates = new ArrayList<>(byPage.values());
+        limit = Math.min(limit, candidates.size());
+        if (limit <= 0) return new Result(new ArrayList<>(), candidates.size(), 0, maxScore);
+
+        for (PageStats s : candidates) {
+            float norm = K1 * (1 - B + B * s.length / avgLength);
+            float score = 0;
+            int distinct = 0;
+            for (int t = 0; t < terms.length; t++) {
+                int tf = s.tf[t];
+                if (tf == 0) continue;
+                distinct++;
+                score += idf[t] * tf * (K1 + 1) / (tf + norm);
+            }
+            s.bm25 = score;
+            s.bound = score + (distinct > 1 ? PROXIMITY_WEIGHT : 0);
+        }
+
+        candidates.sort(Comparator.comparingDouble((PageStats s) -> s.bound).reversed()
+                .thenComparingInt(s -> s.page));
+
+        Comparator<PageStats> worstFirst = Comparator.comparingDouble((PageStats s) -> s.score)
+                .thenComparing(Comparator.comparingInt((PageStats s) -> s.page).reversed());
+        PriorityQueue<PageStats> heap = new PriorityQueue<>(limit, worstFirst);
+        int tokenized = 0;
+        for (PageStats s : candidates) {
+            if (heap.size() >= limit && s.bound < heap.peek().score) break;
+            s.score = s.bm25;
+            if (s.bound > s.bm25) {
+                s.positions = positions(index.text(s.page));
+                s.score += PROXIMITY_WEIGHT * proximity(s);
+                tokenized++;
+            }
+            if (heap.size() < limit) {
+                heap.add(s);
+            } else if (worstFirst.compare(s, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(s);
+            }
+        }
+
+        List<PageStats> ranked = new ArrayList<>(heap);
+        ranked.sort(worstFirst.reversed());
+        return new Result(ranked, candidates.size(), tokenized, maxScore);
+    }
+
+    /**
+     * Char spans {start, end} of the query-term tokens in the densest stretch of {@code text}:
+     * the run of consecutive hits with the most hits that fits in {@code maxWidth} chars.
+     */
+    List<int[]> densestHits(String text, int maxWidth) {
+        List<int[]> hits = new ArrayList<>();
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i > start && termIndex.containsKey(text.substring(start, i).toLowerCase(Locale.ROOT))) {
+                hits.add(new int[]{start, i});
+            }
+        }
+
+        int bestFrom = 0, bestTo = 0;
+        for (int from = 0, to = 0; to < hits.size(); to++) {
+            while (hits.get(to)[1] - hits.get(from)[0] > maxWidth && from < to) from++;
+            if (to - from > bestTo - bestFrom) {
+                bestFrom = from;
+                bestTo = to;
+            }
+        }
+        return hits.isEmpty() ? hits : hits.subList(bestFrom, bestTo + 1);
+    }
+
+    /** Mean over adjacent query-term pairs of 1 / (closest token distance); 0 for single-term queries. */
+    private float proximity(PageStats s) {
+        if (terms.length < 2) return 0;
+        float sum = 0;
+        for (int t = 0; t + 1 < terms.length; t++) {
+            int[] a = s.positions[t];
+            int[] b = s.positions[t + 1];
+            if (a.length == 0 || b.length == 0) continue;
+            int best = Integer.MAX_VALUE;
+            int i = 0, j = 0;
+            while (i < a.length && j < b.length && best > 1) {
+                best = Math.min(best, Math.abs(a[i] - b[j]));
+                if (a[i] < b[j]) i++; else j++;
+            }
+            sum += 1f / Math.max(1, best);
+        }
+        return sum / (terms.length - 1);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i > start) out.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,122 @@
+package com.shiv.pdfhl.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tracks which configured nodes are ready and keeps the hash ring in sync with them.
+ * When the live set changes the ring is swapped and this node preloads the hot documents it now owns.
+ * Preloads run one at a time on their own thread, so the scheduler keeps probing health meanwhile.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClusterMembership {
+
+    private final AccessLog accessLog;
+    private final TextSearchService textService;
+
+    @Value("${app.cluster.self:http://localhost:${server.port:8080}}")
+    private String self;
+
+    @Value("${app.cluster.nodes:}")
+    private List<String> configuredNodes;
+
+    @Value("${app.cluster.virtual-nodes:64}")
+    private int virtualNodes;
+
+    @Value("${app.cluster.health-timeout-ms:1000}")
+    private int healthTimeoutMs;
+
+    @Value("${app.warmup.preload-top:5}")
+    private int preloadTop;
+
+    private RestClient health;
+    private volatile ConsistentHashRing ring;
+    private ExecutorService preloads;
+    private final Set<String> pendingPreloads = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(healthTimeoutMs);
+        factory.setReadTimeout(healthTimeoutMs);
+        health = RestClient.builder().requestFactory(factory).build();
+        ring = new ConsistentHashRing(List.of(self), virtualNodes);
+        preloads = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "rebalance-preload");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        preloads.shutdownNow();
+    }
+
+    public String self() { return self; }
+
+    public ConsistentHashRing ring() { return ring; }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.cluster.health-interval-ms:5000}")
+    public void refresh() {
+        Set<String> live = new LinkedHashSet<>();
+        live.add(self);
+        for (String node : configuredNodes) {
+            String n = node.trim();
+            if (n.isEmpty() || n.equals(self)) continue;
+            if (isReady(n)) live.add(n);
+        }
+        List<String> sorted = new ArrayList<>(live);
+        sorted.sort(null);
+        if (sorted.equals(ring.nodes())) return;
+
+        ConsistentHashRing previous = ring;
+        ring = new ConsistentHashRing(sorted, virtualNodes);
+        log.info("Cluster membership changed: {} -> {}", previous.nodes(), sorted);
+        rebalance(previous);
+    }
+
+    private void rebalance(ConsistentHashRing previous) {
+        for (String fileName : accessLog.top(preloadTop)) {
+            boolean ownedNow = self.equals(ring.owners(fileName, 1).get(0));
+            boolean ownedBefore = self.equals(previous.owners(fileName, 1).get(0));
+            // a document already waiting from an earlier membership change is not queued twice
+            if (!ownedNow || ownedBefore || !pendingPreloads.add(fileName)) continue;
+            preloads.execute(() -> {
+                try {
+                    textService.preload(fileName);
+                } catch (Exception e) {
+                    log.warn("Preload of {} after rebalance failed: {}", fileName, e.getMessage());
+                } finally {
+                    pendingPreloads.remove(fileName);
+                }
+            });
+        }
+    }
+
+    private boolean isReady(String node) {
+        try {
+            health.get().uri(node + "/actuator/health/readiness").retrieve().toBodilessEntity();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.shiv.pdfhl.service;
+
+import com.shiv.pdfhl.dto.ClusterSearchRequest;
+import com.shiv.pdfhl.dto.ClusterSearchResponse;
+import com.shiv.pdfhl.dto.ExtractRequest;
+import com.shiv.pdfhl.dto.ExtractResponse;
+import com.shiv.pdfhl.dto.PageHit;
+import com.shiv.pdfhl.dto.ShardStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Scatter-gather coordinator: each document goes to its ring owner, a hedge request goes to the
+ * next node on the ring when the owner is slow or fails, and the shard answers are merged.
+ * Shard calls run as pool tasks that are interrupted when the coordinator gives up on them or
+ * the other hedge leg wins, so a slow shard cannot keep fan-out threads busy.
+ * Hedge delays are timed on their own scheduler thread, so a saturated fan-out pool cannot hold back a hedge.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClusterSearchService {
+
+    private final ClusterMembership membership;
+    private final TextSearchService textService;
+
+    @Value("${app.cluster.hedge-after-ms:1000}")
+    private long hedgeAfterMs;
+
+    @Value("${app.cluster.timeout-ms:30000}")
+    private int timeoutMs;
+
+    @Value("${app.cluster.fanout-threads:16}")
+    private int fanoutThreads;
+
+    private RestClient shards;
+    private ExecutorService pool;
+    private ScheduledThreadPoolExecutor hedgeTimer;
+
+    private record ShardResult(String node, ExtractResponse response, long finishedNanos) {}
+
+    @PostConstruct
+    void init() {
+        // the JDK client gives up a blocked request when its thread is interrupted, unlike HttpURLConnection
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(Math.min(timeoutMs, 2000)))
+                .build());
+        factory.setReadTimeout(timeoutMs);
+        shards = RestClient.builder().requestFactory(factory).build();
+        pool = Executors.newFixedThreadPool(fanoutThreads);
+        hedgeTimer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "hedge-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        // timers of answered requests are cancelled, so drop them instead of letting them pile up
+        hedgeTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hedgeTimer.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Shards get 90% of the remaining budget so they can answer partially before the coordinator
+     * gives up on them; the merged response is partial when any shard was.
+     */
+    public ClusterSearchResponse search(ClusterSearchRequest req, Deadline deadline) {
+        long t0 = System.nanoTime();
+        long budget = Math.min(TimeUnit.MILLISECONDS.toNanos(timeoutMs), deadline.remainingNanos());
+        long budgetMs = TimeUnit.NANOSECONDS.toMillis(budget);
+        Deadline shardDeadline = Deadline.of(Math.max(1, budgetMs - budgetMs / 10), 0);
+        ConsistentHashRing ring = membership.ring();
+        List<String> fileNames = new ArrayList<>(new LinkedHashSet<>(req.getFileNames()));
+
+        List<String> owners = new ArrayList<>();
+        List<Long> started = new ArrayList<>();
+        List<CompletableFuture<ShardResult>> futures = new ArrayList<>();
+        for (String fileName : fileNames) {
+            List<String> candidates = ring.owners(fileName, 2);
+            owners.add(candidates.get(0));
+            started.add(System.nanoTime());
+            futures.add(hedged(candidates, shardRequest(req, fileName), shardDeadline));
+        }
+
+        long waitUntil = t0 + budget;
+        List<PageHit> pages = new ArrayList<>();
+        List<ShardStatus> statuses = new ArrayList<>();
+        int matched = 0;
+        boolean partial = false;
+        for (int i = 0; i < futures.size(); i++) {
+            ShardStatus.ShardStatusBuilder status = ShardStatus.builder()
+                    .fileName(fileNames.get(i))
+                    .owner(owners.get(i));
+            long finished;
+            try {
+                ShardResult r = futures.get(i).get(Math.max(0, waitUntil - System.nanoTime()), TimeUnit.NANOSECONDS);
+                finished = r.finishedNanos();
+                matched += r.response().getMatchedPages();
+                partial |= r.response().isPartial();
+                Float maxScore = r.response().getMaxScore();
+                for (PageHit hit : r.response().getPages()) {
+                    hit.setFileName(fileNames.get(i));
+                    if (hit.getScore() != null && maxScore != null && maxScore > 0) hit.setScore(hit.getScore() / maxScore);
+                    pages.add(hit);
+                }
+                status.servedBy(r.node()).unscannedPages(r.response().getUnscannedPages());
+            } catch (TimeoutException e) {
+                futures.get(i).cancel(true);
+                finished = System.nanoTime();
+                status.error("Timed out after " + budgetMs + " ms");
+                partial = true;
+            } catch (ExecutionException e) {
+                finished = System.nanoTime();
+                status.error(e.getCause().getMessage());
+                partial = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Cluster search interrupted", e);
+            }
+            statuses.add(status.ms(Math.max(0, finished - started.get(i)) / 1_000_000).build());
+        }
+
+        if (req.isRanked()) {
+            // BM25 IDF is per document, so raw scores are not comparable across shards; each was divided
+            // by its document's maximum above, which puts them all on a 0..1 scale
+            pages.sort(Comparator.comparing(PageHit::getScore, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Comparator.comparingInt(PageHit::getOccurrences).reversed()));
+            if (pages.size() > req.getTopK()) pages = new ArrayList<>(pages.subList(0, req.getTopK()));
+        }
+
+        return ClusterSearchResponse.builder()
+                .query(req.getQuery())
+                .documents(fileNames.size())
+                .matchedPages(matched)
+                .pages(pages)
+                .shards(statuses)
+                .partial(partial)
+                .totalMs((System.nanoTime() - t0) / 1_000_000)
+                .build();
+    }
+
+    /** First successful answer from the owner or its backup; the backup fires after the hedge delay or on owner failure. */
+    private CompletableFuture<ShardResult> hedged(List<String> candidates, ExtractRequest req, Deadline deadline) {
+        CompletableFuture<ShardResult> primary = call(candidates.get(0), req, deadline);
+        if (candidates.size() < 2) return primary;
+
+        CompletableFuture<ShardResult> result = new CompletableFuture<>();
+        List<CompletableFuture<ShardResult>> legs = new CopyOnWriteArrayList<>(List.of(primary));
+        // once an answer is in, or the coordinator cancels, stop whichever legs are still running
+        result.whenComplete((r, e) -> legs.forEach(leg -> leg.cancel(true)));
+        AtomicInteger failures = new AtomicInteger();
+        AtomicBoolean hedgeFired = new AtomicBoolean();
+        BiConsumer<ShardResult, Throwable> onDone = (r, e) -> {
+            if (e == null) result.complete(r);
+            else if (failures.incrementAndGet() == 2) result.completeExceptionally(e);
+        };
+        Runnable hedge = () -> {
+            if (result.isDone() || !hedgeFired.compareAndSet(false, true)) return;
+            CompletableFuture<ShardResult> backup = call(candidates.get(1), req, deadline);
+            legs.add(backup);
+            if (result.isDone()) backup.cancel(true);
+            backup.whenComplete(onDone);
+        };
+
+        primary.whenComplete((r, e) -> {
+            onDone.accept(r, e);
+            if (e != null) hedge.run();
+        });
+        ScheduledFuture<?> timer = hedgeTimer.schedule(hedge, hedgeAfterMs, TimeUnit.MILLISECONDS);
+        result.whenComplete((r, e) -> timer.cancel(false));
+        return result;
+    }
+
+    private CompletableFuture<ShardResult> call(String node, ExtractRequest req, Deadline deadline) {
+        if (node.equals(membership.self())) {
+            return submit(() -> new ShardResult(node, textService.search(req, deadline), System.nanoTime()));
+        }
+        return submit(() -> new ShardResult(node, shards.post()
+                .uri(node + "/api/search")
+                .header(Deadline.HEADER, String.valueOf(Math.max(1, deadline.remainingMillis())))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(req)
+                .retrieve()
+                .body(ExtractResponse.class), System.nanoTime()));
+    }
+
+    /** Runs {@code task} on the fan-out pool; cancelling the returned future interrupts the task. */
+    private CompletableFuture<ShardResult> submit(Callable<ShardResult> task) {
+        CompletableFuture<ShardResult> cf = new CompletableFuture<>();
+        Future<?> running = pool.submit(() -> {
+            try {
+                cf.complete(task.call());
+            } catch (Throwable e) {
+                cf.completeExceptionally(e);
+            }
+        });
+        cf.whenComplete((r, e) -> {
+            if (cf.isCancelled()) running.cancel(true);
+        });
+        return cf;
+    }
+
+    private static ExtractRequest shardRequest(ClusterSearchRequest req, String fileName) {
+        ExtractRequest shard = new ExtractRequest();
+        shard.setFileName(fileName);
+        shard.setQuery(req.getQuery());
+        shard.setMode(req.getMode());
+        shard.setFields(req.getFields());
+        shard.setRanked(req.isRanked());
+        shard.setTopK(req.getTopK());
+        return shard;
+    }
+}
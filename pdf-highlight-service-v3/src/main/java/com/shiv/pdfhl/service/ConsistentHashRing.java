@@ -0,0 +1,56 @@
+package com.shiv.pdfhl.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring of node base URLs. Each node owns {@code virtualNodes}
+ * points, so adding or removing a node only moves roughly 1/N of the documents.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = List.copyOf(nodes);
+        for (String node : this.nodes) {
+            for (int v = 0; v < virtualNodes; v++) ring.put(hash(node + "#" + v), node);
+        }
+    }
+
+    public List<String> nodes() { return nodes; }
+
+    /** Up to {@code count} distinct nodes for a document, owner first, then its successors on the ring. */
+    public List<String> owners(String documentId, int count) {
+        List<String> out = new ArrayList<>();
+        if (ring.isEmpty()) return out;
+        int wanted = Math.min(count, nodes.size());
+        for (Map.Entry<Long, String> e : ring.tailMap(hash(documentId), true).entrySet()) {
+            if (!out.contains(e.getValue())) out.add(e.getValue());
+            if (out.size() == wanted) return out;
+        }
+        for (Map.Entry<Long, String> e : ring.entrySet()) {
+            if (!out.contains(e.getValue())) out.add(e.getValue());
+            if (out.size() == wanted) return out;
+        }
+        return out;
+    }
+
+    static long hash(String key) {
+        try {
+            byte[] d = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) h = (h << 8) | (d[i] & 0xFF);
+            return h;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.shiv.pdfhl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shiv.pdfhl.dto.ExtractRequest;
+import com.shiv.pdfhl.dto.ExtractResponse;
+import com.shiv.pdfhl.dto.JobStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Background search jobs for documents too large to scan within a request. Results are written
+ * to {@code app.jobs.dir} and served later; each tenant runs at most {@code app.jobs.max-per-tenant} jobs at once,
+ * the rest wait in a per-tenant queue of at most {@code app.jobs.max-queued-per-tenant}, beyond which submissions
+ * get 429. Jobs live in memory only, so result files that no job refers to (left by an earlier process) are deleted at startup and on every purge.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobService {
+
+    public static final String KIND_SEARCH = "search";
+
+    private final TextSearchService service;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.jobs.dir:./jobs}")
+    private String jobsDir;
+
+    @Value("${app.jobs.threads:4}")
+    private int threads;
+
+    @Value("${app.jobs.max-per-tenant:2}")
+    private int maxPerTenant;
+
+    @Value("${app.jobs.max-queued-per-tenant:20}")
+    private int maxQueuedPerTenant;
+
+    @Value("${app.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Deque<Job>> queued = new HashMap<>();     // guarded by this
+    private final Map<String, Integer> running = new HashMap<>();       // guarded by this
+    private Path dir;
+    private ExecutorService pool;
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final String tenant;
+        final String kind;
+        final ExtractRequest req;
+        final Path result;
+        final Instant createdAt = Instant.now();
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        volatile String state = "QUEUED";
+        final AtomicInteger pagesDone = new AtomicInteger();   // only moves forward, page workers report out of order
+        volatile int totalPages;
+        volatile String error;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile boolean cancelRequested;
+        Thread worker;                                         // guarded by the job
+
+        Job(String tenant, String kind, ExtractRequest req, Path dir) {
+            this.tenant = tenant;
+            this.kind = kind;
+            this.req = req;
+            this.result = dir.resolve(id + ".json");
+        }
+
+        boolean finished() {
+            return finishedAt != null;
+        }
+    }
+
+    @PostConstruct
+    void init() throws Exception {
+        dir = Files.createDirectories(Path.of(jobsDir));
+        pool = Executors.newFixedThreadPool(threads);
+        purgeOrphans();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public JobStatus submit(String tenant, String kind, ExtractRequest req) {
+        Job job = new Job(tenant, kind, req, dir);
+        jobs.put(job.id, job);
+        try {
+            startOrQueue(job);
+        } catch (ResponseStatusException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+        return status(job);
+    }
+
+    public JobStatus status(String tenant, String id) {
+        return status(find(tenant, id));
+    }
+
+    public JobStatus cancel(String tenant, String id) {
+        Job job = find(tenant, id);
+        if (job.finished()) return status(job);
+        job.cancelRequested = true;
+        synchronized (this) {
+            Deque<Job> q = queued.get(job.tenant);
+            if (q != null && q.remove(job)) {
+                finish(job, "CANCELLED", null);
+                return status(job);
+            }
+        }
+        // under the job's lock the worker is still running this job, so the interrupt cannot reach another one
+        synchronized (job) {
+            if (job.worker != null) job.worker.interrupt();
+        }
+        return status(job);
+    }
+
+    public Path result(String tenant, String id) {
+        Job job = find(tenant, id);
+        if (!"DONE".equals(job.state)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Job is " + job.state);
+        }
+        return job.result;
+    }
+
+    public SseEmitter subscribe(String tenant, String id) {
+        Job job = find(tenant, id);
+        SseEmitter emitter = new SseEmitter(Duration.ofMinutes(30).toMillis());
+        job.emitters.add(emitter);
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+        send(job, emitter);
+        if (job.finished()) emitter.complete();
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.purge-interval-ms:60000}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> {
+            if (!job.finished() || job.finishedAt.isAfter(cutoff)) return false;
+            try { Files.deleteIfExists(job.result); } catch (Exception e) {
+                log.warn("Could not delete job result {}: {}", job.result, e.getMessage());
+            }
+            return true;
+        });
+        purgeOrphans();
+    }
+
+    /** Deletes files in the jobs dir written for jobs this process does not know. */
+    private void purgeOrphans() {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(f -> {
+                String id = jobId(f);
+                return id != null && !jobs.containsKey(id);
+            }).forEach(f -> {
+                try { Files.deleteIfExists(f); } catch (Exception e) {
+                    log.warn("Could not delete orphaned job file {}: {}", f, e.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Could not list jobs dir {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /** Id of the job a file in the jobs dir belongs to, or null when the file is not a job file. */
+    private static String jobId(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        String id = dot < 0 ? name : name.substring(0, dot);
+        try {
+            return UUID.fromString(id).toString().equals(id) ? id : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private synchronized void startOrQueue(Job job) {
+        int active = running.getOrDefault(job.tenant, 0);
+        if (active < maxPerTenant) {
+            running.put(job.tenant, active + 1);
+            pool.execute(() -> run(job));
+        } else {
+            Deque<Job> q = queued.computeIfAbsent(job.tenant, t -> new ArrayDeque<>());
+            if (q.size() >= maxQueuedPerTenant) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many queued jobs for this tenant");
+            }
+            q.add(job);
+        }
+    }
+
+    private synchronized void slotFreed(String tenant) {
+        Deque<Job> q = queued.get(tenant);
+        Job next = q == null ? null : q.poll();
+        if (next != null) {
+            pool.execute(() -> run(next));
+        } else {
+            running.merge(tenant, -1, Integer::sum);
+        }
+    }
+
+    private void run(Job job) {
+        synchronized (job) {
+            job.worker = Thread.currentThread();
+        }
+        Path part = job.result.resolveSibling(job.id + ".part");
+        try {
+            if (job.cancelRequested) throw new CancellationException();
+            job.state = "RUNNING";
+            job.startedAt = Instant.now();
+            publish(job);
+            PageProgress progress = (done, total) -> {
+                job.pagesDone.accumulateAndGet(done, Math::max);
+                job.totalPages = total;
+                publish(job);
+            };
+            ExtractResponse response = service.search(job.req, Deadline.NONE, progress);
+            objectMapper.writeValue(part.toFile(), response);
+            Files.move(part, job.result, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finish(job, "DONE", null);
+        } catch (Exception e) {
+            if (job.cancelRequested || e instanceof CancellationException) finish(job, "CANCELLED", null);
+            else finish(job, "FAILED", e.getMessage());
+        } finally {
+            synchronized (job) {
+                job.worker = null;
+                Thread.interrupted();
+            }
+            try { Files.deleteIfExists(part); } catch (Exception ignored) { }
+            slotFreed(job.tenant);
+        }
+    }
+
+    private void finish(Job job, String state, String error) {
+        job.state = state;
+        job.error = error;
+        job.finishedAt = Instant.now();
+        publish(job);
+        job.emitters.forEach(SseEmitter::complete);
+    }
+
+    private void publish(Job job) {
+        for (SseEmitter emitter : job.emitters) send(job, emitter);
+    }
+
+    private void send(Job job, SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(status(job)));
+        } catch (Exception e) {
+            job.emitters.remove(emitter);
+        }
+    }
+
+    private Job find(String tenant, String id) {
+        Job job = jobs.get(id);
+        if (job == null || !job.tenant.equals(tenant)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Job not found: " + id);
+        }
+        return job;
+    }
+
+    private static JobStatus status(Job job) {
+        return JobStatus.builder()
+                .id(job.id)
+                .kind(job.kind)
+                .state(job.state)
+                .pagesDone(job.pagesDone.get())
+                .totalPages(job.totalPages)
+                .error(job.error)
+                .createdAt(job.createdAt)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .resultUrl("DONE".equals(job.state) ? "/api/jobs/" + job.id + "/result" : null)
+                .build();
+    }
+}
@@ -1,22 +1,27 @@
 package com.shiv.pdfhl.service;
 
 import com.shiv.pdfhl.dto.Rect;
+import com.shiv.pdfhl.util.QueryPattern;
 import lombok.RequiredArgsConstructor;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.text.TextPosition;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StopWatch;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CancellationException;
 
 @Service
 @RequiredArgsConstructor
@@ -25,7 +30,9 @@ public class MatchBoxService {
     @Value("${app.pdf.base-path}")
     private String pdfBasePath;
 
-    public ResponseEntity<List<Rect>> getMatchBoxesResponse(String fileName, String query, int page1Based) {
+    public ResponseEntity<List<Rect>> getMatchBoxesResponse(String fileName, String query, String mode, int page1Based,
+                                                            Deadline deadline) {
+        QueryPattern pattern = QueryPattern.compile(query, mode, false);
         StopWatch sw = new StopWatch("page-matches");
         sw.start("loadBytes");
         File pdfFile = resolveFile(fileName);
@@ -41,22 +48,11 @@ public class MatchBoxService {
             if (page1Based < 1 || page1Based > doc.getNumberOfPages()) {
                 throw new IllegalArgumentException("Page out of range");
             }
-            PositionCollector stripper = new PositionCollector(page1Based);
-            stripper.setSortByPosition(true);
-            stripper.getText(doc);
-            List<TextPosition> positions = stripper.positions;
-            StringBuilder sb = new StringBuilder();
-            for (TextPosition tp : positions) sb.append(tp.getUnicode());
-
-            String hay = sb.toString().toLowerCase();
-            String needle = query.toLowerCase();
-            Pattern pattern = Pattern.compile(Pattern.quote(needle));
-            Matcher m = pattern.matcher(hay);
-
-            float scale = 180f / 72f;
-            while (m.find()) {
-                rects.addAll(boxesForRange(positions, m.start(), m.end(), scale));
+            for (List<Rect> match : matchBoxes(doc, pattern, page1Based, 180f / 72f, deadline)) {
+                rects.addAll(match);
             }
+        } catch (CancellationException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Boxes did not finish before the deadline");
         } catch (Exception e) {
             throw new RuntimeException("Boxes failed: " + e.getMessage(), e);
         }
@@ -68,6 +64,32 @@ public class MatchBoxService {
                 .body(rects);
     }
 
+    /** Line boxes of each match on a page, one list per match, at {@code scale} pixels per point. */
+    static List<List<Rect>> matchBoxes(PDDocument doc, QueryPattern pattern, int page1Based, float scale,
+                                       Deadline deadline) throws IOException {
+        PositionCollector stripper = new PositionCollector(page1Based, deadline);
+        stripper.setSortByPosition(true);
+        stripper.getText(doc);
+        List<TextPosition> positions = stripper.positions;
+        StringBuilder sb = new StringBuilder();
+        for (TextPosition tp : positions) sb.append(tp.getUnicode());
+
+        // a glyph can carry several chars (ligatures like "fi", surrogate pairs), so match offsets
+        // are char indices into sb and map to glyphs through charGlyph, as in textLayer.js
+        int[] charGlyph = new int[sb.length()];
+        for (int g = 0, c = 0; g < positions.size(); g++) {
+            for (int k = positions.get(g).getUnicode().length(); k > 0; k--) charGlyph[c++] = g;
+        }
+
+        List<List<Rect>> out = new ArrayList<>();
+        QueryPattern.Matches m = pattern.matcher(sb);
+        while (m.find()) {
+            List<Rect> boxes = boxesForRange(positions, charGlyph[m.start()], charGlyph[m.end() - 1] + 1, scale);
+            if (!boxes.isEmpty()) out.add(boxes);
+        }
+        return out;
+    }
+
     private static List<Rect> boxesForRange(List<TextPosition> positions, int start, int end, float scale) {
         List<Rect> out = new ArrayList<>();
         if (start < 0 || end > positions.size()) return out;
@@ -113,15 +135,23 @@ public class MatchBoxService {
         return f;
     }
 
+    /** Collects the text positions of one page, checking the deadline before every operator. */
     static class PositionCollector extends PDFTextStripper {
         final int page;
+        final Deadline deadline;
         final List<TextPosition> positions = new ArrayList<>();
-        PositionCollector(int page1Based) throws java.io.IOException {
+        PositionCollector(int page1Based, Deadline deadline) throws java.io.IOException {
             this.page = page1Based;
+            this.deadline = deadline;
             setStartPage(page);
             setEndPage(page);
         }
         @Override
+        protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+            deadline.check();
+            super.processOperator(operator, operands);
+        }
+        @Override
         protected void writeString(String text, java.util.List<TextPosition> textPositions) throws java.io.IOException {
             positions.addAll(textPositions);
         }
@@ -1,14 +1,30 @@
 package com.shiv.pdfhl.service;
 
 import java.io.File;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
+/** Extracted page texts; the least recently used are evicted once the cache holds more than {@code MAX_CHARS}. */
 public class PageTextCache {
-    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+    private static final long MAX_CHARS = 64L << 20;   // about 128 MB of UTF-16
+    private static final LinkedHashMap<String, String> CACHE = new LinkedHashMap<>(256, 0.75f, true);   // guarded by CACHE
+    private static long chars;                                                                         // guarded by CACHE
+
     public static String key(File f, int page) {
         return f.getAbsolutePath() + "::" + f.lastModified() + "::" + page;
     }
-    public static String get(String k) { return CACHE.get(k); }
-    public static void put(String k, String v) { CACHE.put(k, v); }
+    public static String get(String k) {
+        synchronized (CACHE) { return CACHE.get(k); }
+    }
+    public static void put(String k, String v) {
+        synchronized (CACHE) {
+            String old = CACHE.put(k, v);
+            chars += v.length() - (old == null ? 0 : old.length());
+            Iterator<String> eldest = CACHE.values().iterator();
+            while (chars > MAX_CHARS && eldest.hasNext()) {
+                chars -= eldest.next().length();
+                eldest.remove();
+            }
+        }
+    }
 }
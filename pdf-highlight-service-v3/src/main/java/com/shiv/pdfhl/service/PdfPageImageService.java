@@ -6,15 +6,18 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StopWatch;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.nio.file.Files;
+import java.util.concurrent.CancellationException;
 
 @Service
 @RequiredArgsConstructor
@@ -23,7 +26,7 @@ public class PdfPageImageService {
     @Value("${app.pdf.base-path}")
     private String pdfBasePath;
 
-    public ResponseEntity<byte[]> renderPageAsPngResponse(String fileName, int page1Based) {
+    public ResponseEntity<byte[]> renderPageAsPngResponse(String fileName, int page1Based, Deadline deadline) {
         StopWatch sw = new StopWatch("page-image");
         sw.start("loadBytes");
         File pdfFile = resolveFile(fileName);
@@ -39,13 +42,15 @@ public class PdfPageImageService {
             if (page1Based < 1 || page1Based > doc.getNumberOfPages()) {
                 throw new IllegalArgumentException("Page out of range");
             }
-            PDFRenderer renderer = new PDFRenderer(doc);
+            PDFRenderer renderer = deadline.renderer(doc);
             renderer.setSubsamplingAllowed(true);
             BufferedImage bim = renderer.renderImageWithDPI(page1Based - 1, 180, ImageType.RGB);
             try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
                 ImageIO.write(bim, "PNG", baos);
                 png = baos.toByteArray();
             }
+        } catch (CancellationException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Render did not finish before the deadline");
         } catch (Exception e) {
             throw new RuntimeException("Render failed: " + e.getMessage(), e);
         }
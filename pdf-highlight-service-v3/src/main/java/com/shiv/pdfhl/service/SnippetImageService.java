@@ -0,0 +1,221 @@
+package com.shiv.pdfhl.service;
+
+import com.shiv.pdfhl.dto.Rect;
+import com.shiv.pdfhl.dto.SnippetImage;
+import com.shiv.pdfhl.dto.SnippetImageRequest;
+import com.shiv.pdfhl.dto.SnippetImagesResponse;
+import com.shiv.pdfhl.util.QueryPattern;
+import lombok.RequiredArgsConstructor;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StopWatch;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Crops around search hits for result lists. A page's padded clips are grouped so that no group's
+ * bounding region is much larger than the clips inside it; each group is drawn once, into an image
+ * the size of its region, and its crops are sub-images of that image. Nearby hits share one pass
+ * over the content stream, while hits far apart (top and bottom of a page) get their own small
+ * renders instead of one spanning most of the page.
+ */
+@Service
+@RequiredArgsConstructor
+public class SnippetImageService {
+
+    /** A group's region may cover at most this many times the summed area of its clips. */
+    private static final float MAX_REGION_WASTE = 2f;
+
+    @Value("${app.pdf.base-path}")
+    private String pdfBasePath;
+
+    /** Clips drawn by one render: their bounding region, their summed area and their indexes. */
+    private record ClipGroup(Rect region, float clipArea, List<Integer> members) {}
+
+    public SnippetImagesResponse render(SnippetImageRequest req, Deadline deadline) {
+        QueryPattern pattern = QueryPattern.compile(req.getQuery(), req.getMode(), false);
+        StopWatch sw = new StopWatch("snippet-images");
+        sw.start("loadBytes");
+        File pdfFile = resolveFile(req.getFileName());
+        byte[] bytes;
+        try { bytes = Files.readAllBytes(pdfFile.toPath()); } catch (Exception e) {
+            throw new RuntimeException("Failed to read PDF: " + e.getMessage(), e);
+        }
+        sw.stop();
+
+        sw.start("render");
+        float scale = req.getDpi() / 72f;
+        List<SnippetImage> snippets = new ArrayList<>();
+        boolean partial = false;
+        try (PDDocument doc = Loader.loadPDF(bytes)) {
+            PDFRenderer renderer = deadline.renderer(doc);
+            renderer.setSubsamplingAllowed(true);
+            pages:
+            for (int page : new LinkedHashSet<>(req.getPages())) {
+                if (page < 1 || page > doc.getNumberOfPages()) {
+                    throw new IllegalArgumentException("Page out of range: " + page);
+                }
+                float[] size = displaySize(doc.getPage(page - 1));
+                List<List<Rect>> matches = MatchBoxService.matchBoxes(doc, pattern, page, 1f, deadline);
+                int count = Math.min(matches.size(), req.getMaxPerPage());
+                if (count == 0) continue;
+                if (deadline.isExpired()) {
+                    partial = true;
+                    break pages;
+                }
+                List<Rect> clips = new ArrayList<>();
+                for (int i = 0; i < count; i++) clips.add(clip(matches.get(i), req.getPadding(), size[0], size[1]));
+                SnippetImage[] pageSnippets = new SnippetImage[count];
+                for (ClipGroup group : group(clips)) {
+                    BufferedImage image = renderRegion(renderer, page, group.region(), scale);
+                    for (int i : group.members()) {
+                        Rect clip = clips.get(i);
+                        pageSnippets[i] = SnippetImage.builder()
+                                .pageNumber(page)
+                                .match(i)
+                                .clip(clip)
+                                .highlights(relativeTo(clip, matches.get(i), scale))
+                                .png(png(crop(image, group.region(), clip, scale)))
+                                .build();
+                    }
+                }
+                snippets.addAll(Arrays.asList(pageSnippets));
+            }
+        } catch (CancellationException e) {
+            if (!deadline.isExpired()) throw e;
+            partial = true;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Snippet render failed: " + e.getMessage(), e);
+        }
+        sw.stop();
+
+        return SnippetImagesResponse.builder()
+                .fileName(req.getFileName())
+                .query(req.getQuery())
+                .dpi(req.getDpi())
+                .snippets(snippets)
+                .docLoadMs(sw.getTaskInfo()[0].getTimeMillis())
+                .renderMs(sw.getTaskInfo()[1].getTimeMillis())
+                .partial(partial)
+                .build();
+    }
+
+    /**
+     * Puts each clip into the first group whose region, grown to cover it, stays within
+     * {@link #MAX_REGION_WASTE} times the area of its clips; otherwise it starts a group of its own.
+     */
+    private static List<ClipGroup> group(List<Rect> clips) {
+        List<ClipGroup> groups = new ArrayList<>();
+        clips:
+        for (int i = 0; i < clips.size(); i++) {
+            Rect clip = clips.get(i);
+            float area = clip.w * clip.h;
+            for (int g = 0; g < groups.size(); g++) {
+                ClipGroup group = groups.get(g);
+                Rect grown = union(List.of(group.region(), clip));
+                if (grown.w * grown.h <= MAX_REGION_WASTE * (group.clipArea() + area)) {
+                    group.members().add(i);
+                    groups.set(g, new ClipGroup(grown, group.clipArea() + area, group.members()));
+                    continue clips;
+                }
+            }
+            List<Integer> members = new ArrayList<>();
+            members.add(i);
+            groups.add(new ClipGroup(clip, area, members));
+        }
+        return groups;
+    }
+
+    /** One pass over the page content, drawing only {@code region} (page points) into an image of its size. */
+    private static BufferedImage renderRegion(PDFRenderer renderer, int page1Based, Rect region, float scale) throws IOException {
+        int w = Math.max(1, Math.round(region.w * scale));
+        int h = Math.max(1, Math.round(region.h * scale));
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setBackground(Color.WHITE);
+            g.clearRect(0, 0, w, h);
+            g.clipRect(0, 0, w, h);
+            g.translate(-region.x * scale, -region.y * scale);
+            renderer.renderPageToGraphics(page1Based - 1, g, scale);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /** The part of the rendered region covered by {@code clip}, sharing its raster. */
+    private static BufferedImage crop(BufferedImage image, Rect region, Rect clip, float scale) {
+        int x = Math.min(image.getWidth() - 1, Math.max(0, Math.round((clip.x - region.x) * scale)));
+        int y = Math.min(image.getHeight() - 1, Math.max(0, Math.round((clip.y - region.y) * scale)));
+        int w = Math.max(1, Math.min(image.getWidth() - x, Math.round(clip.w * scale)));
+        int h = Math.max(1, Math.min(image.getHeight() - y, Math.round(clip.h * scale)));
+        return image.getSubimage(x, y, w, h);
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "PNG", baos);
+            return baos.toByteArray();
+        }
+    }
+
+    /** Union of a match's line boxes, padded and kept on the page. */
+    private static Rect clip(List<Rect> boxes, int padding, float pageWidth, float pageHeight) {
+        Rect u = union(boxes);
+        float x0 = Math.max(0, u.x - padding), y0 = Math.max(0, u.y - padding);
+        float x1 = Math.min(pageWidth, u.x + u.w + padding), y1 = Math.min(pageHeight, u.y + u.h + padding);
+        return new Rect(x0, y0, Math.max(1, x1 - x0), Math.max(1, y1 - y0));
+    }
+
+    private static Rect union(List<Rect> rects) {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (Rect r : rects) {
+            minX = Math.min(minX, r.x);
+            minY = Math.min(minY, r.y);
+            maxX = Math.max(maxX, r.x + r.w);
+            maxY = Math.max(maxY, r.y + r.h);
+        }
+        return new Rect(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    private static List<Rect> relativeTo(Rect clip, List<Rect> boxes, float scale) {
+        List<Rect> out = new ArrayList<>();
+        for (Rect r : boxes) {
+            out.add(new Rect((r.x - clip.x) * scale, (r.y - clip.y) * scale, r.w * scale, r.h * scale));
+        }
+        return out;
+    }
+
+    private static float[] displaySize(PDPage page) {
+        float w = page.getCropBox().getWidth(), h = page.getCropBox().getHeight();
+        return page.getRotation() % 180 == 0 ? new float[]{w, h} : new float[]{h, w};
+    }
+
+    private File resolveFile(String name) {
+        if (name.contains("..") || name.contains("/") || name.contains("\\")) {
+            throw new IllegalArgumentException("Invalid file name.");
+        }
+        File f = new File(pdfBasePath, name);
+        if (!f.exists() || !f.isFile()) throw new IllegalArgumentException("PDF not found: " + f.getAbsolutePath());
+        return f;
+    }
+}
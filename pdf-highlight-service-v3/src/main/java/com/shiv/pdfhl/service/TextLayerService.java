@@ -0,0 +1,195 @@
+package com.shiv.pdfhl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.text.TextPosition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StopWatch;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-page text layer in a compact binary form, so the viewer can find and highlight any query locally.
+ * <pre>
+ * "PTL1"
+ * varint page, varint quantum (units per PDF point), varint width, varint height   (quantized, rotation applied)
+ * varint glyphCount
+ * varint textBytes, UTF-8 text                                                       (all glyph strings concatenated)
+ * glyphCount x { varint chars, zigzag dx, zigzag dy, zigzag dw, zigzag dh }          (UTF-16 length, deltas to previous glyph)
+ * </pre>
+ * Boxes use the same top-left coordinates as {@link MatchBoxService}: x, baseline y, width and height in points.
+ * A layer never changes for a given document hash, so requests carrying {@code v=<hash>} are cacheable forever.
+ */
+@Service
+@RequiredArgsConstructor
+public class TextLayerService {
+
+    static final byte[] MAGIC = {'P', 'T', 'L', '1'};
+    static final int QUANTUM = 8;
+
+    private static final int CACHE_SIZE = 1024;
+    private static final Map<String, String> HASHES = lru();
+    private static final Map<String, byte[]> LAYERS = lru();
+
+    @Value("${app.pdf.base-path}")
+    private String pdfBasePath;
+
+    public ResponseEntity<byte[]> getTextLayerResponse(String fileName, int page1Based, String version, String ifNoneMatch,
+                                                       Deadline deadline) {
+        StopWatch sw = new StopWatch("text-layer");
+        sw.start("hash");
+        File pdfFile = resolveFile(fileName);
+        String fileKey = pdfFile.getAbsolutePath() + "::" + pdfFile.lastModified();
+        byte[] bytes = null;
+        String hash = HASHES.get(fileKey);
+        if (hash == null) {
+            bytes = readBytes(pdfFile);
+            hash = sha256(bytes);
+            HASHES.put(fileKey, hash);
+        }
+        sw.stop();
+
+        String etag = "\"" + hash + "-" + page1Based + "\"";
+        CacheControl cache = hash.equals(version)
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cache).build();
+        }
+
+        sw.start("layer");
+        String layerKey = hash + "::" + page1Based;
+        byte[] layer = LAYERS.get(layerKey);
+        if (layer == null) {
+            if (bytes == null) bytes = readBytes(pdfFile);
+            layer = encode(bytes, page1Based, deadline);
+            LAYERS.put(layerKey, layer);
+        }
+        sw.stop();
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cache)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header("X-Doc-Hash", hash)
+                .header("X-Layer-ms", String.valueOf(sw.getTotalTimeMillis()))
+                .body(layer);
+    }
+
+    private static byte[] encode(byte[] bytes, int page1Based, Deadline deadline) {
+        try (PDDocument doc = Loader.loadPDF(bytes)) {
+            if (page1Based < 1 || page1Based > doc.getNumberOfPages()) {
+                throw new IllegalArgumentException("Page out of range");
+            }
+            MatchBoxService.PositionCollector stripper = new MatchBoxService.PositionCollector(page1Based, deadline);
+            stripper.setSortByPosition(true);
+            stripper.getText(doc);
+
+            PDPage page = doc.getPage(page1Based - 1);
+            PDRectangle box = page.getCropBox();
+            boolean rotated = page.getRotation() % 180 != 0;
+            float width = rotated ? box.getHeight() : box.getWidth();
+            float height = rotated ? box.getWidth() : box.getHeight();
+
+            StringBuilder text = new StringBuilder();
+            for (TextPosition tp : stripper.positions) text.append(tp.getUnicode());
+            byte[] utf8 = text.toString().getBytes(StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length + stripper.positions.size() * 6 + 32);
+            out.write(MAGIC, 0, MAGIC.length);
+            writeVarint(out, page1Based);
+            writeVarint(out, QUANTUM);
+            writeVarint(out, quantize(width));
+            writeVarint(out, quantize(height));
+            writeVarint(out, stripper.positions.size());
+            writeVarint(out, utf8.length);
+            out.write(utf8, 0, utf8.length);
+
+            int px = 0, py = 0, pw = 0, ph = 0;
+            for (TextPosition tp : stripper.positions) {
+                int x = quantize(tp.getXDirAdj());
+                int y = quantize(tp.getYDirAdj());
+                int w = quantize(tp.getWidthDirAdj());
+                int h = quantize(tp.getHeightDir());
+                writeVarint(out, tp.getUnicode().length());
+                writeVarint(out, zigzag(x - px));
+                writeVarint(out, zigzag(y - py));
+                writeVarint(out, zigzag(w - pw));
+                writeVarint(out, zigzag(h - ph));
+                px = x; py = y; pw = w; ph = h;
+            }
+            return out.toByteArray();
+        } catch (CancellationException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Text layer did not finish before the deadline");
+        } catch (Exception e) {
+            throw new RuntimeException("Text layer failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static int quantize(float v) {
+        return Math.round(v * QUANTUM);
+    }
+
+    private static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (Exception e) {
+            throw new RuntimeException("Hash failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] readBytes(File pdfFile) {
+        try { return Files.readAllBytes(pdfFile.toPath()); } catch (Exception e) {
+            throw new RuntimeException("Failed to read PDF: " + e.getMessage(), e);
+        }
+    }
+
+    private static <V> Map<String, V> lru() {
+        return Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+    }
+
+    private File resolveFile(String name) {
+        if (name.contains("..") || name.contains("/") || name.contains("\\")) {
+            throw new IllegalArgumentException("Invalid file name.");
+        }
+        File f = new File(pdfBasePath, name);
+        if (!f.exists() || !f.isFile()) throw new IllegalArgumentException("PDF not found: " + f.getAbsolutePath());
+        return f;
+    }
+}
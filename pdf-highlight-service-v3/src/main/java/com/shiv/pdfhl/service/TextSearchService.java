@@ -4,25 +4,40 @@ import com.shiv.pdfhl.dto.ExtractRequest;
 import com.shiv.pdfhl.dto.ExtractResponse;
 import com.shiv.pdfhl.dto.PageHit;
 import com.shiv.pdfhl.util.MarkdownUtil;
+import com.shiv.pdfhl.util.QueryPattern;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StopWatch;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -31,47 +46,199 @@ public class TextSearchService {
     @Value("${app.pdf.base-path}")
     private String pdfBasePath;
 
+    private static final int SNIPPET_PADDING = 60;
+
     @Value("${app.search.parallelism:0}")
     private int configuredParallelism;
 
-    public ExtractResponse search(ExtractRequest req) {
+    /** HMAC key for page tokens; blank means a random key, so tokens do not survive a restart. */
+    @Value("${app.search.page-token-secret:}")
+    private String pageTokenSecret;
+
+    private SecretKeySpec pageTokenKey;
+
+    @PostConstruct
+    void initPageTokenKey() {
+        byte[] key;
+        if (pageTokenSecret == null || pageTokenSecret.isBlank()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = pageTokenSecret.getBytes(StandardCharsets.UTF_8);
+        }
+        pageTokenKey = new SecretKeySpec(key, "HmacSHA256");
+    }
+
+    public ExtractResponse search(ExtractRequest req, Deadline deadline) {
+        return search(req, deadline, PageProgress.NONE);
+    }
+
+    /**
+     * When the deadline expires during extraction the pages extracted so far are searched and the
+     * response is marked partial; extracted pages stay in {@link PageTextCache}, so a retry resumes.
+     */
+    public ExtractResponse search(ExtractRequest req, Deadline deadline, PageProgress progress) {
+        QueryPattern pattern = QueryPattern.compile(req.getQuery(), req.getMode(), false);
+        if (req.isRanked() && !pattern.isLiteral()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ranked search supports literal queries only.");
+        }
+
         StopWatch sw = new StopWatch("search");
-        sw.start("loadBytes");
+        sw.start("loadIndex");
         File pdfFile = resolveFile(req.getFileName());
+        int parallelism = configuredParallelism <= 0 ? Runtime.getRuntime().availableProcessors() : configuredParallelism;
+        TrigramIndex index = documentIndex(pdfFile, parallelism, deadline, progress);
+        sw.stop();
+
+        if (req.isRanked()) {
+            return rankedSearch(req, index, parallelism, sw);
+        }
+
+        sw.start("scanPages");
+        int[] candidates = index.candidates(pattern.requiredLiterals());
+        int afterPage = decodePageToken(req);
+        if (afterPage > index.pageCount()) throw invalidPageToken();
+        Integer limit = req.getLimit();
+        List<PageHit> pages = new ArrayList<>();
+        int matched = 0;
+        boolean more = false;
+        for (int p : candidates) {
+            String pageText = index.text(p);
+            int count = pattern.count(pageText);
+            if (count == 0) continue;
+            matched++;
+            if (p <= afterPage) continue;
+            if (limit != null && pages.size() >= limit) {
+                more = true;
+                continue;
+            }
+            pages.add(hit(req, p, pageText, count,
+                    t -> MarkdownUtil.buildSnippet(t, pattern, SNIPPET_PADDING)).build());
+        }
+        sw.stop();
+
+        return ExtractResponse.builder()
+                .fileName(req.getFileName())
+                .query(req.getQuery())
+                .totalPages(index.pageCount())
+                .matchedPages(matched)
+                .pages(pages)
+                .docLoadMs(sw.getTaskInfo()[0].getTimeMillis())
+                .scanMs(sw.getTaskInfo()[1].getTimeMillis())
+                .pagesScanned(candidates.length)
+                .parallelism(parallelism)
+                .nextPageToken(more ? encodePageToken(req, pages.get(pages.size() - 1).getPageNumber()) : null)
+                .partial(!index.isComplete())
+                .unscannedPages(unscannedPages(index))
+                .build();
+    }
+
+    /** Extracts and indexes a document ahead of its first search. */
+    public void preload(String fileName) {
+        preload(fileName, Deadline.NONE);
+    }
+
+    /** As {@link #preload(String)}; pages extracted before the deadline stay cached for the first search. */
+    public void preload(String fileName, Deadline deadline) {
+        int parallelism = configuredParallelism <= 0 ? Runtime.getRuntime().availableProcessors() : configuredParallelism;
+        documentIndex(resolveFile(fileName), parallelism, deadline, PageProgress.NONE);
+    }
+
+    /** Fenced markdown of one page, for clients that searched with a compact projection. */
+    public String pageMarkdown(String fileName, int page1Based, Deadline deadline) {
+        File pdfFile = resolveFile(fileName);
+        int parallelism = configuredParallelism <= 0 ? Runtime.getRuntime().availableProcessors() : configuredParallelism;
+        TrigramIndex index = documentIndex(pdfFile, parallelism, deadline, PageProgress.NONE);
+        if (page1Based < 1 || page1Based > index.pageCount()) {
+            throw new IllegalArgumentException("Page out of range");
+        }
+        if (Arrays.binarySearch(index.unscannedPages(), page1Based) >= 0) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Page not extracted before the deadline");
+        }
+        return MarkdownUtil.toFencedCodeBlock(index.text(page1Based));
+    }
+
+    private static PageHit.PageHitBuilder hit(ExtractRequest req, int page, String pageText, int count,
+                                              Function<String, String> snippet) {
+        PageHit.PageHitBuilder b = PageHit.builder()
+                .pageNumber(page)
+                .occurrences(count);
+        switch (req.getFields() == null ? "full" : req.getFields()) {
+            case "full" -> b.pageMarkdown(MarkdownUtil.toFencedCodeBlock(pageText));
+            case "snippets" -> b.snippetMarkdown(snippet.apply(pageText));
+            default -> { }
+        }
+        return b;
+    }
+
+    private static List<Integer> unscannedPages(TrigramIndex index) {
+        if (index.isComplete()) return null;
+        List<Integer> out = new ArrayList<>();
+        for (int p : index.unscannedPages()) out.add(p);
+        return out;
+    }
+
+    /** Cached trigram index of the document, extracted and built on first use; only complete indexes are cached. */
+    private TrigramIndex documentIndex(File pdfFile, int parallelism, Deadline deadline, PageProgress progress) {
+        String key = TrigramIndex.key(pdfFile);
+        TrigramIndex index = TrigramIndex.get(key);
+        if (index != null) {
+            progress.pageDone(index.pageCount(), index.pageCount());
+            return index;
+        }
+
         byte[] bytes;
         try { bytes = Files.readAllBytes(pdfFile.toPath()); } catch (Exception e) {
             throw new RuntimeException("Read PDF bytes failed: " + e.getMessage(), e);
         }
-        sw.stop();
+        index = TrigramIndex.build(pageTexts(pdfFile, bytes, parallelism, deadline, progress));
+        if (index.isComplete()) TrigramIndex.put(key, index);
+        return index;
+    }
 
-        int parallelism = configuredParallelism <= 0 ? Runtime.getRuntime().availableProcessors() : configuredParallelism;
+    private ExtractResponse rankedSearch(ExtractRequest req, TrigramIndex index, int parallelism, StopWatch sw) {
+        int offset = decodePageToken(req);
+        Bm25Ranker ranker = new Bm25Ranker(req.getQuery());
 
         sw.start("scanPages");
-        List<PageHit> pages = parallelScan(bytes, req.getQuery(), parallelism);
+        int totalPages = index.pageCount();
+        Bm25Ranker.Result result = ranker.rank(index, (int) Math.min((long) offset + req.getTopK(), Integer.MAX_VALUE));
         sw.stop();
+        if (offset > result.candidates) throw invalidPageToken();
 
-        int total;
-        try (PDDocument d = Loader.loadPDF(bytes)) {
-            total = d.getNumberOfPages();
-        } catch (Exception e) { throw new RuntimeException("Load for total pages failed: " + e.getMessage(), e); }
+        List<PageHit> pages = new ArrayList<>();
+        for (int i = offset; i < result.ranked.size(); i++) {
+            Bm25Ranker.PageStats s = result.ranked.get(i);
+            // ranked terms need not be adjacent, so the snippet is the densest stretch of term hits
+            pages.add(hit(req, s.page, index.text(s.page), s.occurrences(),
+                    t -> MarkdownUtil.buildSnippet(t, ranker.densestHits(t, 2 * SNIPPET_PADDING), SNIPPET_PADDING))
+                    .score(s.score)
+                    .build());
+        }
 
+        int next = result.ranked.size();
         return ExtractResponse.builder()
                 .fileName(req.getFileName())
                 .query(req.getQuery())
-                .totalPages(total)
-                .matchedPages(pages.size())
+                .totalPages(totalPages)
+                .matchedPages(result.candidates)
                 .pages(pages)
                 .docLoadMs(sw.getTaskInfo()[0].getTimeMillis())
                 .scanMs(sw.getTaskInfo()[1].getTimeMillis())
-                .pagesScanned(total)
+                .pagesScanned(result.candidates)
+                .maxScore(result.maxScore)
                 .parallelism(parallelism)
+                .nextPageToken(next < result.candidates ? encodePageToken(req, next) : null)
+                .partial(!index.isComplete())
+                .unscannedPages(unscannedPages(index))
                 .build();
     }
 
-    private List<PageHit> parallelScan(byte[] bytes, String query, int parallelism) {
-        List<PageHit> results = Collections.synchronizedList(new ArrayList<>());
-        Pattern pattern = Pattern.compile(Pattern.quote(query), Pattern.CASE_INSENSITIVE);
-
+    /**
+     * Page texts via PageTextCache; interrupting the caller cancels the page workers.
+     * Pages still outstanding when the deadline expires are abandoned and left null.
+     */
+    private String[] pageTexts(File pdfFile, byte[] bytes, int parallelism, Deadline deadline, PageProgress progress) {
         int total;
         try (PDDocument doc = Loader.loadPDF(bytes)) {
             total = doc.getNumberOfPages();
@@ -79,41 +246,92 @@ public class TextSearchService {
             throw new RuntimeException(e);
         }
 
+        String[] texts = new String[total];
+        AtomicInteger done = new AtomicInteger();
         ExecutorService pool = Executors.newFixedThreadPool(parallelism);
-        List<Future<Void>> futures = new ArrayList<>();
-
-        for (int page = 1; page <= total; page++) {
-            final int p = page;
-            futures.add(pool.submit((Callable<Void>) () -> {
-                String pageText;
-                try (PDDocument d = Loader.loadPDF(bytes)) {
-                    PDFTextStripper stripper = new PDFTextStripper();
-                    stripper.setSortByPosition(true);
-                    stripper.setStartPage(p);
-                    stripper.setEndPage(p);
-                    pageText = stripper.getText(d);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int page = 1; page <= total; page++) {
+                final int p = page;
+                String key = PageTextCache.key(pdfFile, p);
+                String cached = PageTextCache.get(key);
+                if (cached != null) {
+                    texts[p - 1] = cached;
+                    progress.pageDone(done.incrementAndGet(), total);
+                    continue;
                 }
-                Matcher m = pattern.matcher(pageText);
-                int count = 0;
-                while (m.find()) count++;
-                if (count > 0) {
-                    results.add(PageHit.builder()
-                            .pageNumber(p)
-                            .pageMarkdown(MarkdownUtil.toFencedCodeBlock(pageText))
-                            .occurrences(count)
-                            .build());
+                futures.add(pool.submit((Callable<Void>) () -> {
+                    deadline.check();
+                    try (PDDocument d = Loader.loadPDF(bytes)) {
+                        PDFTextStripper stripper = deadline.textStripper();
+                        stripper.setSortByPosition(true);
+                        stripper.setStartPage(p);
+                        stripper.setEndPage(p);
+                        String text = stripper.getText(d);
+                        PageTextCache.put(key, text);
+                        texts[p - 1] = text;
+                    }
+                    progress.pageDone(done.incrementAndGet(), total);
+                    return null;
+                }));
+            }
+
+            for (Future<Void> f : futures) {
+                try {
+                    f.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Search cancelled");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof CancellationException && deadline.isExpired()) break;
+                    throw new RuntimeException(e.getCause());
                 }
-                return null;
-            }));
+            }
+        } finally {
+            pool.shutdownNow();
         }
+        // snapshot, so an abandoned worker finishing late cannot change the array being indexed
+        return texts.clone();
+    }
+
+    /** {@code base64(position:hmac)}, where the HMAC covers the position and the query scope. */
+    private String encodePageToken(ExtractRequest req, int position) {
+        String raw = position + ":" + Base64.getUrlEncoder().withoutPadding().encodeToString(pageTokenMac(req, position));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-        for (Future<Void> f : futures) {
-            try { f.get(); } catch (Exception e) { throw new RuntimeException(e); }
+    private int decodePageToken(ExtractRequest req) {
+        String token = req.getPageToken();
+        if (token == null || token.isBlank()) return 0;
+        int position;
+        byte[] mac;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            position = Integer.parseInt(raw.substring(0, colon));
+            mac = Base64.getUrlDecoder().decode(raw.substring(colon + 1));
+        } catch (RuntimeException e) {
+            throw invalidPageToken();
         }
-        pool.shutdown();
+        if (position < 0 || !MessageDigest.isEqual(mac, pageTokenMac(req, position))) throw invalidPageToken();
+        return position;
+    }
 
-        results.sort((a,b) -> Integer.compare(a.getPageNumber(), b.getPageNumber()));
-        return results;
+    private static ResponseStatusException invalidPageToken() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page token.");
+    }
+
+    private byte[] pageTokenMac(ExtractRequest req, int position) {
+        String scope = position + "::" + req.getFileName() + "::" + req.getQuery() + "::" + req.getMode() + "::" + req.isRanked();
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(pageTokenKey);
+            return mac.doFinal(scope.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Page token signing failed: " + e.getMessage(), e);
+        }
     }
 
     private File resolveFile(String name) {
@@ -0,0 +1,241 @@
+package com.shiv.pdfhl.service;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-document trigram index over extracted page texts.
+ * Postings are held in three primitive arrays (sorted trigram keys, offsets, page numbers),
+ * so a lookup is a handful of binary searches plus a sorted-list intersection.
+ * Case folding is ASCII plus the non-ASCII letters that fold onto ASCII ones (Kelvin sign, long s,
+ * dotted and dotless i), so an ASCII query never misses a page; non-ASCII fragments are not narrowed.
+ * Pages whose text is missing (a request ran out of time) index as empty and are listed by {@link #unscannedPages()}.
+ * Documents with more pages than a posting can address get no postings, and every lookup returns all pages.
+ * Word postings (page and term frequency) and per-page token counts back BM25 ranking without re-tokenizing pages.
+ * The most recently used indexes are kept in a small LRU.
+ */
+public final class TrigramIndex {
+
+    private static final int CACHE_SIZE = 32;
+    private static final Map<String, TrigramIndex> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TrigramIndex> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+    private static final int MAX_PAGES = 1 << 16;
+
+    private final String[] texts;
+    private final long[] keys;         // null when the document has too many pages to index
+    private final int[] offsets;
+    private final int[] pages;
+    private final int[] unscanned;
+    private final int[] tokenCounts;
+    private final Map<String, int[]> words;   // word -> {page, tf, page, tf, ...}, pages ascending
+
+    private TrigramIndex(String[] texts, long[] keys, int[] offsets, int[] pages, int[] unscanned) {
+        this.texts = texts;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.pages = pages;
+        this.unscanned = unscanned;
+        this.tokenCounts = new int[texts.length];
+        this.words = wordPostings(texts, tokenCounts);
+    }
+
+    public static String key(File f) {
+        return f.getAbsolutePath() + "::" + f.lastModified();
+    }
+    public static TrigramIndex get(String k) { return CACHE.get(k); }
+    public static void put(String k, TrigramIndex v) { CACHE.put(k, v); }
+
+    public static TrigramIndex build(String[] texts) {
+        int[] unscanned = new int[texts.length];
+        int missing = 0;
+        for (int p = 0; p < texts.length; p++) {
+            if (texts[p] != null) continue;
+            texts[p] = "";
+            unscanned[missing++] = p + 1;
+        }
+        if (texts.length > MAX_PAGES) {
+            return new TrigramIndex(texts, null, null, null, Arrays.copyOf(unscanned, missing));
+        }
+
+        long[][] perPage = new long[texts.length][];
+        int total = 0;
+        for (int p = 0; p < texts.length; p++) {
+            perPage[p] = distinctTrigrams(texts[p]);
+            total += perPage[p].length;
+        }
+
+        // trigram key in the high 48 bits, 0-based page in the low 16: one sort groups postings by key.
+        // A first char >= U+8000 sets the sign bit, so the sort is unsigned: flip the sign bit around a signed sort.
+        long[] packed = new long[total];
+        int n = 0;
+        for (int p = 0; p < texts.length; p++) {
+            for (long k : perPage[p]) packed[n++] = ((k << 16) | p) ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < total; i++) packed[i] ^= Long.MIN_VALUE;
+
+        long[] keys = new long[total];
+        int[] offsets = new int[total + 1];
+        int[] pages = new int[total];
+        int distinct = 0;
+        for (int i = 0; i < total; i++) {
+            long k = packed[i] >>> 16;
+            if (distinct == 0 || keys[distinct - 1] != k) {
+                keys[distinct] = k;
+                offsets[distinct++] = i;
+            }
+            pages[i] = (int) (packed[i] & 0xFFFF) + 1;
+        }
+        offsets[distinct] = total;
+        return new TrigramIndex(texts, Arrays.copyOf(keys, distinct), Arrays.copyOf(offsets, distinct + 1), pages,
+                Arrays.copyOf(unscanned, missing));
+    }
+
+    public int pageCount() { return texts.length; }
+
+    /** 1-based pages that were not extracted; empty for a complete index. */
+    public int[] unscannedPages() { return unscanned; }
+
+    public boolean isComplete() { return unscanned.length == 0; }
+
+    /** Extracted text of a 1-based page. */
+    public String text(int page) { return texts[page - 1]; }
+
+    /** Number of words on a 1-based page, as {@link Bm25Ranker#tokenize} splits them. */
+    public int tokenCount(int page) { return tokenCounts[page - 1]; }
+
+    public float averageTokenCount() {
+        long total = 0;
+        for (int c : tokenCounts) total += c;
+        return texts.length == 0 ? 0f : (float) total / texts.length;
+    }
+
+    /** {page, tf, page, tf, ...} of a lowercased word, pages ascending; empty when no page contains it. */
+    public int[] termPostings(String word) {
+        int[] p = words.get(word);
+        return p == null ? new int[0] : p;
+    }
+
+    /**
+     * 1-based pages that contain every trigram of {@code query}, ascending.
+     * Queries shorter than three characters cannot be narrowed and return every page.
+     */
+    public int[] candidates(String query) {
+        long[] grams = keys == null ? new long[0] : distinctTrigrams(query);
+        if (grams.length == 0) {
+            int[] all = new int[texts.length];
+            for (int i = 0; i < all.length; i++) all[i] = i + 1;
+            return all;
+        }
+
+        int[] slots = new int[grams.length];
+        for (int g = 0; g < grams.length; g++) {
+            int slot = Arrays.binarySearch(keys, grams[g]);
+            if (slot < 0) return new int[0];
+            slots[g] = slot;
+        }
+
+        // intersect starting from the shortest posting list
+        int shortest = slots[0];
+        for (int s : slots) if (postingLength(s) < postingLength(shortest)) shortest = s;
+        int[] result = Arrays.copyOfRange(pages, offsets[shortest], offsets[shortest + 1]);
+        int size = result.length;
+        for (int s : slots) {
+            if (s == shortest) continue;
+            size = intersect(result, size, s);
+            if (size == 0) break;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /** 1-based pages that could contain all of {@code literals}; every page when there are none. */
+    public int[] candidates(String[] literals) {
+        if (literals.length == 0) return candidates("");
+        int[] result = candidates(literals[0]);
+        for (int i = 1; i < literals.length && result.length > 0; i++) {
+            int[] other = candidates(literals[i]);
+            int out = 0, a = 0, b = 0;
+            while (a < result.length && b < other.length) {
+                if (result[a] < other[b]) a++;
+                else if (result[a] > other[b]) b++;
+                else { result[out++] = result[a++]; b++; }
+            }
+            result = Arrays.copyOf(result, out);
+        }
+        return result;
+    }
+
+    private int postingLength(int slot) {
+        return offsets[slot + 1] - offsets[slot];
+    }
+
+    private int intersect(int[] acc, int size, int slot) {
+        int out = 0;
+        int i = 0, j = offsets[slot], end = offsets[slot + 1];
+        while (i < size && j < end) {
+            if (acc[i] < pages[j]) i++;
+            else if (acc[i] > pages[j]) j++;
+            else { acc[out++] = acc[i++]; j++; }
+        }
+        return out;
+    }
+
+    private static Map<String, int[]> wordPostings(String[] texts, int[] tokenCounts) {
+        Map<String, int[]> postings = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        for (int p = 0; p < texts.length; p++) {
+            Map<String, Integer> tf = new HashMap<>();
+            for (String w : Bm25Ranker.tokenize(texts[p])) {
+                tf.merge(w, 1, Integer::sum);
+                tokenCounts[p]++;
+            }
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                int size = sizes.getOrDefault(e.getKey(), 0);
+                int[] list = postings.get(e.getKey());
+                if (list == null || list.length == size) {
+                    list = list == null ? new int[4] : Arrays.copyOf(list, size * 2);
+                    postings.put(e.getKey(), list);
+                }
+                list[size] = p + 1;
+                list[size + 1] = e.getValue();
+                sizes.put(e.getKey(), size + 2);
+            }
+        }
+        postings.replaceAll((w, list) -> Arrays.copyOf(list, sizes.get(w)));
+        return postings;
+    }
+
+    private static long[] distinctTrigrams(String s) {
+        int n = s.length() - 2;
+        if (n <= 0) return new long[0];
+        long[] grams = new long[n];
+        for (int i = 0; i < n; i++) {
+            grams[i] = ((long) fold(s.charAt(i)) << 32) | ((long) fold(s.charAt(i + 1)) << 16) | fold(s.charAt(i + 2));
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) grams[distinct++] = grams[i];
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static char fold(char c) {
+        if (c < 0x80) return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        return switch (c) {
+            case '\u212A' -> 'k';
+            case '\u017F' -> 's';
+            case '\u0130', '\u0131' -> 'i';
+            default -> c;
+        };
+    }
+}
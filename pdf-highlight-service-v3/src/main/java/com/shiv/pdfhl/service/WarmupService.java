@@ -0,0 +1,113 @@
+package com.shiv.pdfhl.service;
+
+import com.shiv.pdfhl.util.QueryPattern;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs before the application reports ready: Spring Boot only switches readiness to
+ * ACCEPTING_TRAFFIC after every {@link ApplicationRunner} has returned, so the pod stays
+ * out of rotation until fonts, JIT and the hottest documents are warm, or until the warm-up
+ * budget runs out; steps still running then are cancelled and the pod reports ready anyway.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WarmupService implements ApplicationRunner {
+
+    private final TextSearchService textService;
+    private final PdfPageImageService imageService;
+    private final MatchBoxService boxService;
+    private final AccessLog accessLog;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.pdf.base-path}")
+    private String pdfBasePath;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.iterations:3}")
+    private int iterations;
+
+    @Value("${app.warmup.preload-top:5}")
+    private int preloadTop;
+
+    @Value("${app.warmup.budget-ms:120000}")
+    private long budgetMs;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        Deadline budget = Deadline.of(null, budgetMs);
+
+        time("fonts", () -> FontMappers.instance().getFontBoxFont("Helvetica", null));
+
+        List<String> hot = hotDocuments();
+        if (!hot.isEmpty()) {
+            String sample = hot.get(0);
+            time("jit", () -> {
+                for (int i = 0; i < iterations && !budget.isExpired(); i++) {
+                    imageService.renderPageAsPngResponse(sample, 1, budget);
+                    boxService.getMatchBoxesResponse(sample, "the", QueryPattern.LITERAL, 1, budget);
+                }
+            });
+        }
+        int preloaded = 0;
+        for (String fileName : hot) {
+            if (budget.isExpired()) {
+                log.warn("Warm-up budget of {} ms spent; skipping {} of {} documents", budgetMs, hot.size() - preloaded, hot.size());
+                break;
+            }
+            time("preload " + fileName, () -> textService.preload(fileName, budget));
+            preloaded++;
+        }
+
+        Duration took = Duration.ofNanos(System.nanoTime() - start);
+        Timer.builder("app.warmup.duration")
+                .description("Time spent warming up before readiness")
+                .register(meterRegistry)
+                .record(took);
+        log.info("Warm-up finished in {} ms ({} documents preloaded)", took.toMillis(), preloaded);
+    }
+
+    /** Top documents from the access log, or the first PDF on disk when there is no history yet. */
+    private List<String> hotDocuments() {
+        List<String> out = new ArrayList<>();
+        for (String name : accessLog.top(preloadTop)) {
+            if (new File(pdfBasePath, name).isFile()) out.add(name);
+        }
+        if (out.isEmpty()) {
+            String[] pdfs = new File(pdfBasePath).list((dir, name) -> name.toLowerCase().endsWith(".pdf"));
+            if (pdfs != null && pdfs.length > 0) {
+                Arrays.sort(pdfs);
+                out.add(pdfs[0]);
+            }
+        }
+        return out;
+    }
+
+    private void time(String step, Runnable work) {
+        long t0 = System.nanoTime();
+        try {
+            work.run();
+            log.info("Warm-up {} took {} ms", step, (System.nanoTime() - t0) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Warm-up {} failed: {}", step, e.getMessage());
+        }
+    }
+}
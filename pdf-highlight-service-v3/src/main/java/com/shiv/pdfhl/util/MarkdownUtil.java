@@ -1,8 +1,42 @@
 package com.shiv.pdfhl.util;
 
+import java.util.List;
+
 public final class MarkdownUtil {
     private MarkdownUtil() {}
     public static String toFencedCodeBlock(String pageText) {
         return "```text\n" + pageText + "\n```";
     }
+
+    public static String buildSnippet(String pageText, QueryPattern query, int padChars) {
+        QueryPattern.Matches m = query.matcher(pageText);
+        if (!m.find()) return "";
+        return buildSnippet(pageText, List.of(new int[]{m.start(), m.end()}), padChars);
+    }
+
+    /** Snippet spanning the given ascending, non-overlapping {start, end} hits, each in bold. */
+    public static String buildSnippet(String pageText, List<int[]> hits, int padChars) {
+        if (hits.isEmpty()) return "";
+
+        int start = Math.max(0, hits.get(0)[0] - padChars);
+        int end = Math.min(pageText.length(), hits.get(hits.size() - 1)[1] + padChars);
+
+        StringBuilder snippet = new StringBuilder();
+        int pos = start;
+        for (int[] hit : hits) {
+            snippet.append(escapeForInlineMarkdown(pageText.substring(pos, hit[0])))
+                    .append("**").append(escapeForInlineMarkdown(pageText.substring(hit[0], hit[1]))).append("**");
+            pos = hit[1];
+        }
+        snippet.append(escapeForInlineMarkdown(pageText.substring(pos, end)));
+        return "> " + snippet.toString().replace("\n", "\n> ");
+    }
+
+    private static String escapeForInlineMarkdown(String s) {
+        return s.replace("\\", "\\\\")
+                .replace("_", "\\_")
+                .replace("[", "\\[")
+                .replace("]", "\\]")
+                .replace("`", "\\`");
+    }
 }
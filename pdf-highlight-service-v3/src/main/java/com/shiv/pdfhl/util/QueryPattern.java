@@ -0,0 +1,254 @@
+package com.shiv.pdfhl.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled search query. Literal queries keep using {@code java.util.regex}; regex and wildcard
+ * queries compile to RE2/J automata, which match in time linear in the text and never backtrack,
+ * so a hostile pattern cannot go catastrophic. Compiling expands counted repeats, so patterns are
+ * bounded in length and in how far nested counts multiply before they reach RE2/J.
+ * Compiled patterns are shared through a small LRU.
+ */
+public final class QueryPattern {
+
+    public static final String LITERAL = "literal";
+    public static final String REGEX = "regex";
+    public static final String WILDCARD = "wildcard";   // * any run of non-space characters, ? one of them
+
+    static final int MAX_QUERY_LENGTH = 256;          // regex and wildcard modes
+    static final int MAX_REPEAT = 1000;               // largest {n,m} count
+    static final int MAX_REPEAT_NESTING = 2;          // counted repeats inside counted repeats
+    static final long MAX_REPEAT_PRODUCT = 10_000;    // product of nested counts
+    private static final java.util.regex.Pattern REPEAT =
+            java.util.regex.Pattern.compile("\\{(\\d{1,9})(?:,(\\d{0,9}))?}");
+
+    private static final int CACHE_SIZE = 512;
+    private static final Map<String, QueryPattern> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, QueryPattern> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    /** A query that is not a valid pattern or too expensive to compile; answered with 400. */
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public static class InvalidPatternException extends IllegalArgumentException {
+        public InvalidPatternException(String message) {
+            super(message);
+        }
+    }
+
+    /** The subset of {@link java.util.regex.Matcher} that page scanning and box computation use. */
+    public interface Matches {
+        boolean find();
+        int start();
+        int end();
+    }
+
+    private final java.util.regex.Pattern literal;       // literal mode only
+    private final com.google.re2j.Pattern automaton;     // regex and wildcard modes
+    private final String[] requiredLiterals;
+
+    private QueryPattern(java.util.regex.Pattern literal, com.google.re2j.Pattern automaton, String[] requiredLiterals) {
+        this.literal = literal;
+        this.automaton = automaton;
+        this.requiredLiterals = requiredLiterals;
+    }
+
+    public static QueryPattern compile(String query, String mode, boolean caseSensitive) {
+        String m = mode == null ? LITERAL : mode;
+        String key = m + '\u0000' + caseSensitive + '\u0000' + query;
+        QueryPattern cached = CACHE.get(key);
+        if (cached != null) return cached;
+
+        if (!LITERAL.equals(m) && query.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidPatternException("Pattern is longer than " + MAX_QUERY_LENGTH + " characters.");
+        }
+        QueryPattern compiled = switch (m) {
+            case LITERAL -> new QueryPattern(java.util.regex.Pattern.compile(java.util.regex.Pattern.quote(query),
+                    caseSensitive ? 0 : java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.UNICODE_CASE), null, narrowable(new String[]{query}));
+            case REGEX -> new QueryPattern(null, automaton(query, caseSensitive), new String[0]);
+            case WILDCARD -> new QueryPattern(null, automaton(wildcardToRegex(query), caseSensitive), narrowable(wildcardLiterals(query)));
+            default -> throw new IllegalArgumentException("Unknown query mode: " + mode);
+        };
+        CACHE.put(key, compiled);
+        return compiled;
+    }
+
+    public boolean isLiteral() { return literal != null; }
+
+    /**
+     * Literal fragments every match must contain, for trigram narrowing.
+     * Empty when nothing is known, as for regex queries, so every page has to be scanned.
+     * Non-ASCII fragments are left out: matching folds case across Unicode, the trigram index does not.
+     */
+    public String[] requiredLiterals() { return requiredLiterals; }
+
+    public Matches matcher(CharSequence text) {
+        if (literal != null) {
+            java.util.regex.Matcher m = literal.matcher(text);
+            return new Matches() {
+                public boolean find() { return m.find(); }
+                public int start() { return m.start(); }
+                public int end() { return m.end(); }
+            };
+        }
+        com.google.re2j.Matcher m = automaton.matcher(text);
+        return new Matches() {
+            // zero-width matches (\b, ^, $) are skipped, so they never count as hits without boxes
+            public boolean find() {
+                while (m.find()) {
+                    if (m.end() > m.start()) return true;
+                }
+                return false;
+            }
+            public int start() { return m.start(); }
+            public int end() { return m.end(); }
+        };
+    }
+
+    public int count(CharSequence text) {
+        Matches m = matcher(text);
+        int count = 0;
+        while (m.find()) count++;
+        return count;
+    }
+
+    private static com.google.re2j.Pattern automaton(String regex, boolean caseSensitive) {
+        checkRepeats(regex);
+        com.google.re2j.Pattern p;
+        try {
+            p = com.google.re2j.Pattern.compile(regex, caseSensitive ? 0 : com.google.re2j.Pattern.CASE_INSENSITIVE);
+        } catch (com.google.re2j.PatternSyntaxException e) {
+            throw new InvalidPatternException("Invalid pattern: " + e.getMessage());
+        }
+        if (p.matches("")) throw new InvalidPatternException("Pattern must not match empty text.");
+        return p;
+    }
+
+    /**
+     * Rejects counted repeats that would expand into a huge program, e.g. {@code ((a{1000}){1000}){1000}}.
+     * Tracks, per group, the largest product of nested counts and the deepest nesting of counts inside it.
+     */
+    private static void checkRepeats(String regex) {
+        Deque<long[]> open = new ArrayDeque<>();   // enclosing groups: {product, nesting}
+        long[] group = {1, 0};
+        long[] last = null;                        // previous atom, null right after '(' or '|'
+        java.util.regex.Matcher repeat = REPEAT.matcher(regex);
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '(') {
+                open.push(group);
+                group = new long[]{1, 0};
+                last = null;
+                continue;
+            }
+            if (c == '|') {
+                last = null;
+                continue;
+            }
+            if (c == ')' && !open.isEmpty()) {
+                last = group;
+                group = open.pop();
+            } else if (c == '{' && last != null && repeat.region(i, regex.length()).lookingAt()) {
+                long min = Long.parseLong(repeat.group(1));
+                String max = repeat.group(2);
+                long count = max == null || max.isEmpty() ? min : Math.max(min, Long.parseLong(max));
+                if (count > MAX_REPEAT) {
+                    throw new InvalidPatternException("Repeat count above " + MAX_REPEAT + ".");
+                }
+                last = new long[]{last[0] * Math.max(1, count), last[1] + 1};
+                i = repeat.end() - 1;
+            } else {
+                if (c == '\\') i = skipEscape(regex, i);
+                else if (c == '[') i = skipClass(regex, i);
+                last = new long[]{1, 0};
+            }
+            if (last[1] > MAX_REPEAT_NESTING) {
+                throw new InvalidPatternException("Counted repeats nested more than " + MAX_REPEAT_NESTING + " deep.");
+            }
+            if (last[0] > MAX_REPEAT_PRODUCT) {
+                throw new InvalidPatternException("Nested repeat counts multiply past " + MAX_REPEAT_PRODUCT + ".");
+            }
+            group[0] = Math.max(group[0], last[0]);
+            group[1] = Math.max(group[1], last[1]);
+        }
+    }
+
+    /** Index of the last char of the escape starting at {@code i}; braces of \p{..} and \x{..} and \Q..\E blocks included. */
+    private static int skipEscape(String regex, int i) {
+        if (i + 1 >= regex.length()) return i;
+        char c = regex.charAt(i + 1);
+        if (c == 'Q') {
+            int end = regex.indexOf("\\E", i + 2);
+            return end < 0 ? regex.length() - 1 : end + 1;
+        }
+        if ((c == 'p' || c == 'P' || c == 'x') && i + 2 < regex.length() && regex.charAt(i + 2) == '{') {
+            int end = regex.indexOf('}', i + 3);
+            return end < 0 ? regex.length() - 1 : end;
+        }
+        return i + 1;
+    }
+
+    /** Index of the ']' closing the character class starting at {@code i}. */
+    private static int skipClass(String regex, int i) {
+        int j = i + 1;
+        if (j < regex.length() && regex.charAt(j) == '^') j++;
+        if (j < regex.length() && regex.charAt(j) == ']') j++;
+        for (; j < regex.length(); j++) {
+            char c = regex.charAt(j);
+            if (c == '\\') {
+                j++;
+            } else if (c == '[' && j + 1 < regex.length() && regex.charAt(j + 1) == ':') {
+                int end = regex.indexOf(":]", j + 2);
+                if (end > 0) j = end + 1;
+            } else if (c == ']') {
+                return j;
+            }
+        }
+        return regex.length() - 1;
+    }
+
+    private static String wildcardToRegex(String query) {
+        StringBuilder sb = new StringBuilder();
+        StringBuilder run = new StringBuilder();
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c != '*' && c != '?') {
+                run.append(c);
+                continue;
+            }
+            if (run.length() > 0) sb.append(com.google.re2j.Pattern.quote(run.toString()));
+            run.setLength(0);
+            sb.append(c == '*' ? "\\S*" : "\\S");
+        }
+        if (run.length() > 0) sb.append(com.google.re2j.Pattern.quote(run.toString()));
+        return sb.toString();
+    }
+
+    private static String[] narrowable(String[] literals) {
+        List<String> out = new ArrayList<>();
+        for (String literal : literals) {
+            if (literal.chars().allMatch(c -> c < 0x80)) out.add(literal);
+        }
+        return out.toArray(new String[0]);
+    }
+
+    private static String[] wildcardLiterals(String query) {
+        List<String> out = new ArrayList<>();
+        for (String part : query.split("[*?]")) {
+            if (!part.isEmpty()) out.add(part);
+        }
+        return out.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,66 @@
+package com.shiv.pdfhl.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Bm25RankerTest {
+
+    private static final String[] TEXTS = {
+            "credit risk is managed by the credit risk committee",
+            "market risk and liquidity risk",
+            "credit cards and consumer credit credit credit",
+            "nothing relevant on this page",
+            "risk of credit losses, credit risk appetite and risk limits",
+            "the committee reviews operational risk",
+    };
+
+    @Test
+    void upperBoundIsNeverBelowTheFinalScore() {
+        TrigramIndex index = TrigramIndex.build(TEXTS.clone());
+        Bm25Ranker.Result all = new Bm25Ranker("credit risk").rank(index, TEXTS.length);
+
+        assertThat(all.ranked).hasSize(all.candidates);
+        for (Bm25Ranker.PageStats s : all.ranked) {
+            assertThat(s.bound).isGreaterThanOrEqualTo(s.score);
+            assertThat(s.score).isLessThanOrEqualTo(all.maxScore);
+        }
+    }
+
+    @Test
+    void earlyStopKeepsTheExactTopK() {
+        TrigramIndex index = TrigramIndex.build(TEXTS.clone());
+        Bm25Ranker.Result all = new Bm25Ranker("credit risk").rank(index, TEXTS.length);
+        Bm25Ranker.Result top2 = new Bm25Ranker("credit risk").rank(index, 2);
+
+        assertThat(pages(top2.ranked)).isEqualTo(pages(all.ranked.subList(0, 2)));
+        assertThat(top2.tokenized).isLessThanOrEqualTo(all.tokenized);
+    }
+
+    @Test
+    void onlyPagesContainingATermAreCandidates() {
+        TrigramIndex index = TrigramIndex.build(TEXTS.clone());
+        Bm25Ranker.Result result = new Bm25Ranker("credit").rank(index, 10);
+
+        assertThat(pages(result.ranked)).containsExactlyInAnyOrder(1, 3, 5);
+        assertThat(result.tokenized).isZero();   // single-term queries get no proximity pass
+    }
+
+    @Test
+    void zeroLimitReturnsNoPages() {
+        TrigramIndex index = TrigramIndex.build(TEXTS.clone());
+        Bm25Ranker.Result result = new Bm25Ranker("credit risk").rank(index, 0);
+
+        assertThat(result.ranked).isEmpty();
+        assertThat(result.candidates).isEqualTo(5);
+    }
+
+    private static List<Integer> pages(List<Bm25Ranker.PageStats> stats) {
+        List<Integer> out = new ArrayList<>();
+        for (Bm25Ranker.PageStats s : stats) out.add(s.page);
+        return out;
+    }
+}
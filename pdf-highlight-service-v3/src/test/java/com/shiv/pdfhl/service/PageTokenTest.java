@@ -0,0 +1,101 @@
+package com.shiv.pdfhl.service;
+
+import com.shiv.pdfhl.dto.ExtractRequest;
+import com.shiv.pdfhl.dto.ExtractResponse;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageTokenTest {
+
+    @TempDir
+    Path dir;
+
+    private TextSearchService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (PDDocument doc = new PDDocument()) {
+            for (int p = 1; p <= 3; p++) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    cs.newLineAtOffset(72, 700);
+                    cs.showText("alpha beta page " + p);
+                    cs.endText();
+                }
+            }
+            doc.save(dir.resolve("doc.pdf").toFile());
+        }
+        service = new TextSearchService();
+        ReflectionTestUtils.setField(service, "pdfBasePath", dir.toString());
+        ReflectionTestUtils.setField(service, "configuredParallelism", 1);
+        ReflectionTestUtils.setField(service, "pageTokenSecret", "test-secret");
+        service.initPageTokenKey();
+    }
+
+    @Test
+    void tokenResumesAfterTheLastReturnedPage() {
+        ExtractResponse first = service.search(request("alpha", null), Deadline.NONE);
+        assertThat(first.getPages()).extracting("pageNumber").containsExactly(1);
+        assertThat(first.getNextPageToken()).isNotNull();
+
+        ExtractResponse second = service.search(request("alpha", first.getNextPageToken()), Deadline.NONE);
+        assertThat(second.getPages()).extracting("pageNumber").containsExactly(2);
+    }
+
+    @Test
+    void forgedPositionIsRejected() {
+        String token = service.search(request("alpha", null), Deadline.NONE).getNextPageToken();
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("2" + raw.substring(raw.indexOf(':'))).getBytes(StandardCharsets.UTF_8));
+
+        assertBadRequest(request("alpha", forged));
+    }
+
+    @Test
+    void tokenIsBoundToItsQuery() {
+        String token = service.search(request("alpha", null), Deadline.NONE).getNextPageToken();
+
+        assertBadRequest(request("beta", token));
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        assertBadRequest(request("alpha", "not-a-token"));
+    }
+
+    private static ExtractRequest request(String query, String pageToken) {
+        ExtractRequest req = new ExtractRequest();
+        req.setFileName("doc.pdf");
+        req.setQuery(query);
+        req.setFields("counts");
+        req.setLimit(1);
+        req.setPageToken(pageToken);
+        return req;
+    }
+
+    private void assertBadRequest(ExtractRequest req) {
+        assertThatThrownBy(() -> service.search(req, Deadline.NONE))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,79 @@
+package com.shiv.pdfhl.service;
+
+import com.shiv.pdfhl.util.QueryPattern;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    @Test
+    void narrowsToPagesContainingEveryTrigram() {
+        TrigramIndex index = TrigramIndex.build(new String[]{"annual report", "quarterly report", "annual summary"});
+
+        assertThat(index.candidates("annual")).containsExactly(1, 3);
+        assertThat(index.candidates("report")).containsExactly(1, 2);
+        assertThat(index.candidates("missing")).isEmpty();
+    }
+
+    @Test
+    void foldsAsciiCase() {
+        TrigramIndex index = TrigramIndex.build(new String[]{"Annual REPORT", "other"});
+
+        assertThat(index.candidates("annual report")).containsExactly(1);
+        assertThat(index.candidates("ANNUAL")).containsExactly(1);
+    }
+
+    @Test
+    void foldsNonAsciiLettersThatMatchAsciiCaseInsensitively() {
+        // Kelvin sign, long s and dotted capital I all match an ASCII letter under UNICODE_CASE
+        TrigramIndex index = TrigramIndex.build(new String[]{"\u212Aelvin", "cla\u017Fs", "\u0130nk", "plain"});
+
+        assertThat(index.candidates("kelvin")).containsExactly(1);
+        assertThat(index.candidates("class")).containsExactly(2);
+        assertThat(index.candidates("ink")).containsExactly(3);
+    }
+
+    @Test
+    void narrowingNeverDropsAPageThePatternMatches() {
+        String[] texts = {"Credit RISK", "\u212Aelvin scale", "\u00DCber alles", "credit card", "nothing"};
+        TrigramIndex index = TrigramIndex.build(texts.clone());
+        String[][] queries = {{"credit risk", "literal"}, {"KELVIN", "literal"}, {"\u00FCber", "literal"},
+                {"cred.t (risk|card)", "regex"}, {"kel*", "wildcard"}};
+
+        for (String[] q : queries) {
+            QueryPattern pattern = QueryPattern.compile(q[0], q[1], false);
+            int[] candidates = index.candidates(pattern.requiredLiterals());
+            for (int p = 1; p <= texts.length; p++) {
+                if (pattern.count(texts[p - 1]) > 0) assertThat(candidates).as(q[0]).contains(p);
+            }
+        }
+    }
+
+    @Test
+    void findsTrigramsStartingAboveU8000() {
+        // a first char >= U+8000 sets the sign bit of the packed key
+        TrigramIndex index = TrigramIndex.build(new String[]{"\u9999\u6E2F\u5E02\u653F", "abc", "\u6E2F\u5E02\u653F"});
+
+        assertThat(index.candidates("\u9999\u6E2F\u5E02")).containsExactly(1);
+        assertThat(index.candidates("\u6E2F\u5E02\u653F")).containsExactly(1, 3);
+        assertThat(index.candidates("abc")).containsExactly(2);
+    }
+
+    @Test
+    void shortQueriesAndMissingPagesAreNotNarrowed() {
+        TrigramIndex index = TrigramIndex.build(new String[]{"abc", null, "xyz"});
+
+        assertThat(index.candidates("ab")).containsExactly(1, 2, 3);
+        assertThat(index.unscannedPages()).containsExactly(2);
+        assertThat(index.isComplete()).isFalse();
+    }
+
+    @Test
+    void intersectsRequiredLiterals() {
+        TrigramIndex index = TrigramIndex.build(new String[]{"credit risk", "credit card", "market risk"});
+
+        assertThat(index.candidates(new String[]{"credit", "risk"})).containsExactly(1);
+        assertThat(index.candidates(new String[0])).containsExactly(1, 2, 3);
+    }
+}
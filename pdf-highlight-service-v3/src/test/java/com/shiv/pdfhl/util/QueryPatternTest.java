@@ -0,0 +1,67 @@
+package com.shiv.pdfhl.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryPatternTest {
+
+    @Test
+    void rejectsRegexLongerThanTheLimit() {
+        String tooLong = "a".repeat(QueryPattern.MAX_QUERY_LENGTH + 1);
+
+        assertThatThrownBy(() -> QueryPattern.compile(tooLong, QueryPattern.REGEX, false))
+                .isInstanceOf(QueryPattern.InvalidPatternException.class);
+        assertThatThrownBy(() -> QueryPattern.compile(tooLong, QueryPattern.WILDCARD, false))
+                .isInstanceOf(QueryPattern.InvalidPatternException.class);
+    }
+
+    @Test
+    void literalQueriesAreNotLengthLimited() {
+        String longLiteral = "a".repeat(QueryPattern.MAX_QUERY_LENGTH + 1);
+
+        assertThat(QueryPattern.compile(longLiteral, QueryPattern.LITERAL, false).count(longLiteral)).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsRepeatCountAboveTheLimit() {
+        assertThat(QueryPattern.compile("a{1000}", QueryPattern.REGEX, false).count("a".repeat(1000))).isEqualTo(1);
+        assertThatThrownBy(() -> QueryPattern.compile("a{1001}", QueryPattern.REGEX, false))
+                .isInstanceOf(QueryPattern.InvalidPatternException.class);
+        assertThatThrownBy(() -> QueryPattern.compile("a{2,1001}", QueryPattern.REGEX, false))
+                .isInstanceOf(QueryPattern.InvalidPatternException.class);
+    }
+
+    @Test
+    void rejectsNestedRepeatsWhoseCountsMultiplyPastTheLimit() {
+        assertThat(QueryPattern.compile("(ab{100}){100}", QueryPattern.REGEX, false)).isNotNull();
+        assertThatThrownBy(() -> QueryPattern.compile("(a{1000}){1000}", QueryPattern.REGEX, false))
+                .isInstanceOf(QueryPattern.InvalidPatternException.class);
+        assertThatThrownBy(() -> QueryPattern.compile("(x(a{200}){200})", QueryPattern.REGEX, false))
+                .isInstanceOf(QueryPattern.InvalidPatternException.class);
+    }
+
+    @Test
+    void rejectsRepeatsNestedTooDeep() {
+        assertThatThrownBy(() -> QueryPattern.compile("((a{2}){2}){2}", QueryPattern.REGEX, false))
+                .isInstanceOf(QueryPattern.InvalidPatternException.class);
+    }
+
+    @Test
+    void bracesInsideClassesAndEscapesAreNotRepeats() {
+        assertThat(QueryPattern.compile("[{]a\\{5000\\}", QueryPattern.REGEX, false).count("{a{5000}")).isEqualTo(1);
+        assertThat(QueryPattern.compile("\\p{L}{3}", QueryPattern.REGEX, false).count("abc")).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsPatternsThatMatchEmptyText() {
+        assertThatThrownBy(() -> QueryPattern.compile("a*", QueryPattern.REGEX, false))
+                .isInstanceOf(QueryPattern.InvalidPatternException.class);
+    }
+
+    @Test
+    void skipsZeroWidthMatches() {
+        assertThat(QueryPattern.compile("\\bx|y", QueryPattern.REGEX, false).count("ab y")).isEqualTo(1);
+    }
+}
@@ -1,4 +1,5 @@
 import React, { useEffect, useMemo, useRef, useState } from 'react'
+import { decodeTextLayer, findBoxes } from './textLayer'
 
 const API = 'http://localhost:8080/api'
 
@@ -14,6 +15,8 @@ export default function App() {
   const [metrics, setMetrics] = useState(null)
   const [lastHeaders, setLastHeaders] = useState({})
 
+  const [pageMd, setPageMd] = useState({})
+  const layers = useRef({ fileName: '', hash: '', pages: {} })
   const [imgUrl, setImgUrl] = useState('')
   const [boxes, setBoxes] = useState([])
   const [hitIdx, setHitIdx] = useState(0)
@@ -26,12 +29,12 @@ export default function App() {
       const res = await fetch(`${API}/search`, {
         method: 'POST',
         headers: { 'Content-Type': 'application/json' },
-        body: JSON.stringify({ fileName, query })
+        body: JSON.stringify({ fileName, query, fields: 'counts' })
       })
       if (!res.ok) throw new Error(await res.text())
       const data = await res.json()
-      const basic = (data.pages || []).map(p => ({ pageNumber: p.pageNumber, occurrences: p.occurrences, pageMarkdown: p.pageMarkdown }))
-      setPages(basic); setIdx(0); setHitIdx(0)
+      const basic = (data.pages || []).map(p => ({ pageNumber: p.pageNumber, occurrences: p.occurrences }))
+      setPages(basic); setPageMd({}); setIdx(0); setHitIdx(0)
       setMetrics({ docLoadMs: data.docLoadMs, scanMs: data.scanMs, pagesScanned: data.pagesScanned, parallelism: data.parallelism })
     } catch (e) {
       setError(String(e.message || e)); setPages([]); setMetrics(null)
@@ -43,15 +46,30 @@ export default function App() {
     setError(''); setLoading(true)
     try {
       const p = current.pageNumber
+      if (activeTab === 'markdown' && pageMd[p] === undefined) {
+        const mdRes = await fetch(`${API}/page-markdown?` + new URLSearchParams({ fileName, page: String(p) }))
+        if (!mdRes.ok) throw new Error(await mdRes.text())
+        const md = await mdRes.text()
+        setPageMd(m => ({ ...m, [p]: md }))
+      }
       const imgRes = await fetch(`${API}/page-image?` + new URLSearchParams({ fileName, page: String(p) }))
       const hdrs = { imgDocLoadMs: imgRes.headers.get('X-Doc-Load-ms'), imgRenderMs: imgRes.headers.get('X-Render-ms') }
       const blob = await imgRes.blob()
       setImgUrl(URL.createObjectURL(blob))
 
-      const bRes = await fetch(`${API}/page-matches?` + new URLSearchParams({ fileName, query, page: String(p) }))
-      const hdrs2 = { boxesDocLoadMs: bRes.headers.get('X-Doc-Load-ms'), boxesMs: bRes.headers.get('X-Boxes-ms') }
-      const rects = await bRes.json()
-      setBoxes(rects || []); setHitIdx(0)
+      if (layers.current.fileName !== fileName) layers.current = { fileName, hash: '', pages: {} }
+      const cache = layers.current
+      let hdrs2 = {}
+      if (!cache.pages[p]) {
+        const params = { fileName, page: String(p) }
+        if (cache.hash) params.v = cache.hash
+        const lRes = await fetch(`${API}/text-layer?` + new URLSearchParams(params))
+        if (!lRes.ok) throw new Error(await lRes.text())
+        cache.hash = lRes.headers.get('X-Doc-Hash') || cache.hash
+        cache.pages[p] = decodeTextLayer(await lRes.arrayBuffer())
+        hdrs2 = { layerMs: lRes.headers.get('X-Layer-ms') }
+      }
+      setBoxes(findBoxes(cache.pages[p], query)); setHitIdx(0)
       setLastHeaders({ ...hdrs, ...hdrs2 })
     } catch (e) {
       setError(String(e.message || e)); setBoxes([])
@@ -100,7 +118,7 @@ export default function App() {
         )}
         {Object.keys(lastHeaders).length>0 && (
           <div className="metrics">
-            image: load {lastHeaders.imgDocLoadMs}ms • render {lastHeaders.imgRenderMs}ms | boxes: load {lastHeaders.boxesDocLoadMs}ms • build {lastHeaders.boxesMs}ms
+            image: load {lastHeaders.imgDocLoadMs}ms • render {lastHeaders.imgRenderMs}ms | text layer: {lastHeaders.layerMs ?? 'cached'}{lastHeaders.layerMs ? 'ms' : ''}
           </div>
         )}
         {error && <p style={{color:'crimson'}}>{error}</p>}
@@ -125,7 +143,7 @@ export default function App() {
         )}
 
         {current && activeTab==='markdown' && (
-          <MarkdownView md={current.pageMarkdown} query={query} hitIdx={hitIdx} setHitIdx={setHitIdx} />
+          <MarkdownView md={pageMd[current.pageNumber]} query={query} hitIdx={hitIdx} setHitIdx={setHitIdx} />
         )}
       </div>
     </div>
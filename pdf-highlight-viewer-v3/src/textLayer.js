@@ -0,0 +1,63 @@
+// Decoder for the binary page text layer served by /api/text-layer (see TextLayerService).
+
+export function decodeTextLayer(buffer) {
+  const bytes = new Uint8Array(buffer)
+  if (String.fromCharCode(...bytes.subarray(0, 4)) !== 'PTL1') throw new Error('Not a text layer')
+  let pos = 4
+  const varint = () => {
+    let v = 0, shift = 0, b
+    do { b = bytes[pos++]; v |= (b & 0x7f) << shift; shift += 7 } while (b & 0x80)
+    return v >>> 0
+  }
+  const zigzag = () => { const v = varint(); return (v >>> 1) ^ -(v & 1) }
+
+  const page = varint()
+  const quantum = varint()
+  const width = varint() / quantum
+  const height = varint() / quantum
+  const count = varint()
+  const textBytes = varint()
+  const text = new TextDecoder().decode(bytes.subarray(pos, pos + textBytes))
+  pos += textBytes
+
+  // boxes: x, baseline y, w, h per glyph; charGlyph maps each UTF-16 index of text to its glyph
+  const boxes = new Float32Array(count * 4)
+  const charGlyph = new Int32Array(text.length)
+  let x = 0, y = 0, w = 0, h = 0, c = 0
+  for (let g = 0; g < count; g++) {
+    const chars = varint()
+    x += zigzag(); y += zigzag(); w += zigzag(); h += zigzag()
+    boxes.set([x / quantum, y / quantum, w / quantum, h / quantum], g * 4)
+    for (let k = 0; k < chars; k++) charGlyph[c++] = g
+  }
+  return { page, width, height, text, boxes, charGlyph }
+}
+
+// Same line-merging as MatchBoxService.boxesForRange, scaled to the rendered image DPI.
+export function findBoxes(layer, query, dpi = 180) {
+  const out = []
+  if (!query) return out
+  const scale = dpi / 72
+  // match case-insensitively on the original text: lowercasing can change its length (e.g. U+0130)
+  // and shift every index after that char away from charGlyph
+  const needle = new RegExp(query.replace(/[.*+?^${}()|[\]\\]/g, '\\$&'), 'giu')
+  for (const m of layer.text.matchAll(needle)) {
+    const first = layer.charGlyph[m.index]
+    const last = layer.charGlyph[m.index + m[0].length - 1]
+    let curY = NaN, minX = Infinity, maxX = -Infinity, minY = Infinity, maxY = -Infinity
+    const flush = () => { if (maxX > minX) out.push({ x: minX * scale, y: minY * scale, w: (maxX - minX) * scale, h: (maxY - minY) * scale }) }
+    for (let g = first; g <= last; g++) {
+      const [gx, gy, gw, gh] = layer.boxes.subarray(g * 4, g * 4 + 4)
+      if (Number.isNaN(curY)) curY = gy
+      if (Math.abs(gy - curY) > gh * 0.5) {
+        flush()
+        curY = gy
+        minX = Infinity; maxX = -Infinity; minY = Infinity; maxY = -Infinity
+      }
+      minX = Math.min(minX, gx); minY = Math.min(minY, gy - gh)
+      maxX = Math.max(maxX, gx + gw); maxY = Math.max(maxY, gy)
+    }
+    flush()
+  }
+  return out
+}
@@ -0,0 +1,121 @@
+package com.shiv.pdfload;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Writes a deterministic corpus of text PDFs: Zipf-distributed filler words with the query
+ * terms mixed in, so every query hits a realistic spread of pages. An existing corpus is reused
+ * when it was generated with the same settings.
+ */
+final class CorpusGenerator {
+
+    private static final String[] SYLLABLES = {
+            "ka", "to", "re", "ni", "sa", "mo", "lu", "ve", "di", "po", "ra", "te", "qui", "bel", "son",
+            "mar", "tin", "gal", "dor", "fen", "lis", "cor", "pan", "ter", "vo", "zu", "ex", "al", "in", "um"};
+    private static final int VOCABULARY = 2000;
+    private static final int LINES_PER_PAGE = 46;
+    private static final int CHARS_PER_LINE = 95;
+    private static final double QUERY_TERM_RATE = 0.004;
+
+    private CorpusGenerator() {}
+
+    static List<String> generate(Path dir, int documents, int pages, long seed, List<String> queries) throws IOException {
+        Files.createDirectories(dir);
+        Properties wanted = new Properties();
+        wanted.setProperty("documents", String.valueOf(documents));
+        wanted.setProperty("pages", String.valueOf(pages));
+        wanted.setProperty("seed", String.valueOf(seed));
+        wanted.setProperty("queries", String.join(",", queries));
+
+        List<String> names = new ArrayList<>();
+        for (int d = 1; d <= documents; d++) names.add(String.format("doc-%03d.pdf", d));
+
+        Path marker = dir.resolve("corpus.properties");
+        if (Files.isRegularFile(marker) && names.stream().allMatch(n -> Files.isRegularFile(dir.resolve(n)))) {
+            Properties existing = new Properties();
+            try (InputStream in = Files.newInputStream(marker)) { existing.load(in); }
+            if (existing.equals(wanted)) return names;
+        }
+
+        Random rnd = new Random(seed);
+        String[] vocabulary = vocabulary(rnd);
+        double[] cumulative = zipf(vocabulary.length);
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        for (String name : names) {
+            try (PDDocument doc = new PDDocument()) {
+                for (int p = 0; p < pages; p++) {
+                    PDPage page = new PDPage(PDRectangle.LETTER);
+                    doc.addPage(page);
+                    try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                        cs.beginText();
+                        cs.setFont(font, 10);
+                        cs.setLeading(14);
+                        cs.newLineAtOffset(50, 742);
+                        for (int l = 0; l < LINES_PER_PAGE; l++) {
+                            cs.showText(line(rnd, vocabulary, cumulative, queries));
+                            cs.newLine();
+                        }
+                        cs.endText();
+                    }
+                }
+                doc.save(dir.resolve(name).toFile());
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(marker)) {
+            wanted.store(out, "pdf-load-test corpus");
+        }
+        return names;
+    }
+
+    private static String line(Random rnd, String[] vocabulary, double[] cumulative, List<String> queries) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < CHARS_PER_LINE) {
+            if (sb.length() > 0) sb.append(' ');
+            if (rnd.nextDouble() < QUERY_TERM_RATE) {
+                sb.append(queries.get(rnd.nextInt(queries.size())));
+            } else if (rnd.nextInt(40) == 0) {
+                sb.append(rnd.nextInt(100_000));
+            } else {
+                int i = Arrays.binarySearch(cumulative, rnd.nextDouble());
+                sb.append(vocabulary[i >= 0 ? i : Math.min(-i - 1, vocabulary.length - 1)]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String[] vocabulary(Random rnd) {
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder w = new StringBuilder();
+            int n = 1 + rnd.nextInt(4);
+            for (int s = 0; s < n; s++) w.append(SYLLABLES[rnd.nextInt(SYLLABLES.length)]);
+            words[i] = w.toString();
+        }
+        return words;
+    }
+
+    /** Cumulative Zipf(1) distribution over ranks, normalised to end at 1. */
+    private static double[] zipf(int n) {
+        double[] c = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) c[k] = sum += 1.0 / (k + 1);
+        for (int k = 0; k < n; k++) c[k] /= sum;
+        return c;
+    }
+}
@@ -0,0 +1,61 @@
+package com.shiv.pdfload;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Per-operation latencies in microseconds; percentiles are taken by sorting once at the end. */
+final class LatencyRecorder {
+
+    record Stats(long count, long errors, long bytes, double p50Ms, double p99Ms, double p999Ms, double maxMs) {}
+
+    private static final class Samples {
+        long[] micros = new long[1024];
+        int size;
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+
+        synchronized void add(long v) {
+            if (size == micros.length) micros = Arrays.copyOf(micros, size * 2);
+            micros[size++] = v;
+        }
+
+        synchronized long[] sorted() {
+            long[] out = Arrays.copyOf(micros, size);
+            Arrays.sort(out);
+            return out;
+        }
+    }
+
+    private final Map<String, Samples> ops = new ConcurrentHashMap<>();
+
+    void success(String op, long micros, long bytes) {
+        Samples s = samples(op);
+        s.add(micros);
+        s.bytes.addAndGet(bytes);
+    }
+
+    void error(String op) {
+        samples(op).errors.incrementAndGet();
+    }
+
+    Stats stats(String op) {
+        Samples s = samples(op);
+        long[] sorted = s.sorted();
+        return new Stats(sorted.length, s.errors.get(), s.bytes.get(),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted.length == 0 ? Double.NaN : sorted[sorted.length - 1] / 1000.0);
+    }
+
+    private Samples samples(String op) {
+        return ops.computeIfAbsent(op, k -> new Samples());
+    }
+
+    /** Nearest-rank percentile in milliseconds. */
+    private static double percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return Double.NaN;
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1000.0;
+    }
+}
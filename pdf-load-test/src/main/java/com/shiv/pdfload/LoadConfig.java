@@ -0,0 +1,68 @@
+package com.shiv.pdfload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/** {@code loadtest.properties} overlaid with {@code key=value} command-line arguments. */
+final class LoadConfig {
+
+    private final Properties props = new Properties();
+
+    static LoadConfig load(String[] args) throws IOException {
+        LoadConfig cfg = new LoadConfig();
+        try (InputStream in = LoadConfig.class.getResourceAsStream("/loadtest.properties")) {
+            if (in != null) cfg.props.load(in);
+        }
+        for (String arg : args) {
+            String a = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = a.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            cfg.props.setProperty(a.substring(0, eq).trim(), a.substring(eq + 1).trim());
+        }
+        return cfg;
+    }
+
+    String get(String key) {
+        String v = props.getProperty(key);
+        if (v == null) throw new IllegalArgumentException("Missing setting: " + key);
+        return v.trim();
+    }
+
+    int getInt(String key) { return Integer.parseInt(get(key)); }
+
+    long getLong(String key) { return Long.parseLong(get(key)); }
+
+    double getDouble(String key) { return Double.parseDouble(get(key)); }
+
+    List<String> list(String key) {
+        List<String> out = new ArrayList<>();
+        for (String s : get(key).split(",")) {
+            if (!s.isBlank()) out.add(s.trim());
+        }
+        return out;
+    }
+
+    /** Operation weights from {@code mix}, e.g. {@code search:50,page-image:20}. */
+    Map<String, Integer> mix() {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        for (String entry : list("mix")) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0) throw new IllegalArgumentException("Expected op:weight in mix, got: " + entry);
+            int weight = Integer.parseInt(entry.substring(colon + 1).trim());
+            if (weight > 0) out.put(entry.substring(0, colon).trim(), weight);
+        }
+        if (out.isEmpty()) throw new IllegalArgumentException("mix has no operation with a positive weight");
+        return out;
+    }
+
+    /** Threshold in milliseconds for {@code slo.<op>.<stat>}, or null when that SLO is not set. */
+    Double slo(String op, String stat) {
+        String v = props.getProperty("slo." + op + "." + stat);
+        return v == null || v.isBlank() ? null : Double.valueOf(v.trim());
+    }
+}
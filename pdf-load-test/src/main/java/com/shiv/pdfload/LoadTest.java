@@ -0,0 +1,303 @@
+package com.shiv.pdfload;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test: generates a PDF corpus, starts the highlight and markdown services on it
+ * (or targets running instances), replays a weighted mix of search, page-matches, page-image and
+ * combined-markdown requests as an open model, and reports throughput, latency percentiles and
+ * service heap and GC figures. Fails when an SLO from {@code loadtest.properties} is broken.
+ *
+ * <pre>cd pdf-load-test &amp;&amp; mvn -B compile exec:java -Dexec.args="rate=8 duration.seconds=120"</pre>
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String[] STATS = {"p50", "p99", "p999"};
+
+    private record Operation(String name, ServiceProcess service, RequestFactory factory) {}
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest.Builder create(Random rnd, String baseUrl) throws JsonProcessingException;
+    }
+
+    /**
+     * Largest heap use and GC pause seen while the measured phase ran, per service. Micrometer's
+     * {@code jvm.gc.pause} MAX only covers a decaying window, so it is sampled as often as the heap.
+     */
+    private static final class JvmSampler {
+        final Map<String, Double> maxHeapBytes = new LinkedHashMap<>();
+        final Map<String, Double> maxGcPauseSeconds = new LinkedHashMap<>();
+
+        synchronized void sample(HttpClient http, List<ServiceProcess> services) {
+            for (ServiceProcess s : services) {
+                double used = s.metric(http, "jvm.memory.used", "area:heap", "VALUE");
+                if (!Double.isNaN(used)) maxHeapBytes.merge(s.name, used, Math::max);
+                double pause = s.metric(http, "jvm.gc.pause", null, "MAX");
+                if (!Double.isNaN(pause)) maxGcPauseSeconds.merge(s.name, pause, Math::max);
+            }
+        }
+    }
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig cfg = LoadConfig.load(args);
+        Path corpus = Path.of(cfg.get("corpus.dir"));
+        List<String> queries = cfg.list("queries");
+        int pages = cfg.getInt("corpus.pages");
+        System.out.println("Generating corpus in " + corpus.toAbsolutePath());
+        List<String> docs = CorpusGenerator.generate(corpus, cfg.getInt("corpus.documents"), pages,
+                cfg.getLong("corpus.seed"), queries);
+
+        Map<String, Integer> mix = cfg.mix();
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<ServiceProcess> services = new ArrayList<>();
+        try {
+            ServiceProcess hl = null, md = null;
+            if (mix.keySet().stream().anyMatch(op -> !op.equals("combined"))) {
+                hl = service(cfg, "hl", corpus);
+                services.add(hl);
+            }
+            if (mix.containsKey("combined")) {
+                md = service(cfg, "md", corpus);
+                services.add(md);
+            }
+            Duration startup = Duration.ofSeconds(cfg.getLong("startup.timeout-seconds"));
+            for (ServiceProcess s : services) {
+                System.out.println("Waiting for " + s.name + " at " + s.baseUrl);
+                s.awaitReady(http, startup);
+            }
+
+            List<Operation> ops = operations(mix.keySet(), hl, md, docs, queries, pages);
+            int[] weights = ops.stream().mapToInt(op -> mix.get(op.name())).toArray();
+            double rate = cfg.getDouble("rate");
+
+            // one stream of arrivals and picks across both phases, so the measured phase does not
+            // replay the exact requests the warm-up just cached
+            Random rnd = new Random(cfg.getLong("corpus.seed"));
+            System.out.printf("Warm-up: %d s at %.1f req/s%n", cfg.getLong("warmup.seconds"), rate);
+            drive(cfg, http, ops, weights, rate, cfg.getLong("warmup.seconds"), rnd, new LatencyRecorder());
+
+            Map<String, double[]> gcBefore = gc(http, services);
+            JvmSampler jvm = new JvmSampler();
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "jvm-sampler");
+                t.setDaemon(true);
+                return t;
+            });
+            sampler.scheduleAtFixedRate(() -> jvm.sample(http, services), 0, 1, TimeUnit.SECONDS);
+
+            long seconds = cfg.getLong("duration.seconds");
+            System.out.printf("Measuring: %d s at %.1f req/s%n", seconds, rate);
+            LatencyRecorder recorder = new LatencyRecorder();
+            long t0 = System.nanoTime();
+            drive(cfg, http, ops, weights, rate, seconds, rnd, recorder);
+            double elapsed = (System.nanoTime() - t0) / 1e9;
+            sampler.shutdownNow();
+            jvm.sample(http, services);
+
+            List<String> violations = report(cfg, ops, recorder, elapsed, rate);
+            reportJvm(http, services, gcBefore, gc(http, services), jvm);
+            if (!violations.isEmpty()) {
+                System.out.println("SLO violations:");
+                violations.forEach(v -> System.out.println("  " + v));
+                throw new IllegalStateException(violations.size() + " SLO violation(s)");
+            }
+            System.out.println("All SLOs met.");
+        } finally {
+            services.forEach(ServiceProcess::close);
+        }
+    }
+
+    private static ServiceProcess service(LoadConfig cfg, String name, Path corpus) throws Exception {
+        String url = cfg.get(name + ".url");
+        if (!url.isBlank()) return ServiceProcess.external(name, url);
+        System.out.println("Starting " + name + " from " + cfg.get(name + ".module"));
+        return ServiceProcess.start(name, Path.of(cfg.get(name + ".module")), cfg.getInt(name + ".port"),
+                corpus, cfg.get("service.jvm-args"));
+    }
+
+    private static List<Operation> operations(Iterable<String> names, ServiceProcess hl, ServiceProcess md,
+                                              List<String> docs, List<String> queries, int pages) {
+        List<Operation> out = new ArrayList<>();
+        for (String name : names) {
+            out.add(switch (name) {
+                case "search" -> new Operation(name, hl, (rnd, base) -> post(base + "/api/search", Map.of(
+                        "fileName", pick(rnd, docs), "query", pick(rnd, queries), "fields", "snippets", "limit", 20)));
+                case "page-matches" -> new Operation(name, hl, (rnd, base) -> get(base + "/api/page-matches"
+                        + "?fileName=" + enc(pick(rnd, docs)) + "&query=" + enc(pick(rnd, queries))
+                        + "&page=" + (1 + rnd.nextInt(pages))));
+                case "page-image" -> new Operation(name, hl, (rnd, base) -> get(base + "/api/page-image"
+                        + "?fileName=" + enc(pick(rnd, docs)) + "&page=" + (1 + rnd.nextInt(pages))));
+                case "combined" -> new Operation(name, md, (rnd, base) -> post(base + "/api/extract/markdown/combined",
+                        Map.of("fileName", pick(rnd, docs), "query", pick(rnd, queries))));
+                default -> throw new IllegalArgumentException("Unknown operation in mix: " + name);
+            });
+        }
+        return out;
+    }
+
+    /**
+     * Open model: arrivals follow a Poisson process at {@code rate} whatever the response times,
+     * and latency runs from the scheduled arrival, so time spent queued behind slow requests counts.
+     * Arrivals beyond {@code max-in-flight} are dropped and counted as errors.
+     */
+    private static void drive(LoadConfig cfg, HttpClient http, List<Operation> ops, int[] weights,
+                              double rate, long seconds, Random rnd, LatencyRecorder recorder) throws InterruptedException {
+        int totalWeight = 0;
+        for (int w : weights) totalWeight += w;
+        Semaphore inFlight = new Semaphore(cfg.getInt("max-in-flight"));
+        Duration timeout = Duration.ofMillis(cfg.getLong("request.timeout-ms"));
+        ExecutorService workers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "load-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        double next = start;
+        while (true) {
+            next += -Math.log(1 - rnd.nextDouble()) / rate * 1e9;
+            long intended = (long) next;
+            if (intended >= end) break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            Operation op = ops.get(pickWeighted(rnd, weights, totalWeight));
+            if (!inFlight.tryAcquire()) {
+                recorder.error(op.name());
+                continue;
+            }
+            HttpRequest request;
+            try {
+                request = op.factory().create(rnd, op.service().baseUrl).timeout(timeout).build();
+            } catch (JsonProcessingException e) {
+                inFlight.release();
+                throw new IllegalStateException(e);
+            }
+            workers.execute(() -> {
+                try {
+                    HttpResponse<byte[]> res = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    long micros = (System.nanoTime() - intended) / 1000;
+                    if (res.statusCode() / 100 == 2) recorder.success(op.name(), micros, res.body().length);
+                    else recorder.error(op.name());
+                } catch (Exception e) {
+                    recorder.error(op.name());
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(timeout.toMillis() + 10_000, TimeUnit.MILLISECONDS)) workers.shutdownNow();
+    }
+
+    private static List<String> report(LoadConfig cfg, List<Operation> ops, LatencyRecorder recorder,
+                                       double elapsed, double rate) {
+        List<String> violations = new ArrayList<>();
+        System.out.println();
+        System.out.printf("Open model at %.1f req/s, %.1f s measured%n", rate, elapsed);
+        System.out.printf("%-14s %8s %7s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "ok", "errors", "req/s", "MB", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long ok = 0, errors = 0;
+        for (Operation op : ops) {
+            LatencyRecorder.Stats s = recorder.stats(op.name());
+            ok += s.count();
+            errors += s.errors();
+            System.out.printf("%-14s %8d %7d %8.2f %9.1f %9.1f %9.1f %9.1f %9.1f%n", op.name(), s.count(), s.errors(),
+                    s.count() / elapsed, s.bytes() / 1e6, s.p50Ms(), s.p99Ms(), s.p999Ms(), s.maxMs());
+
+            double[] observed = {s.p50Ms(), s.p99Ms(), s.p999Ms()};
+            for (int i = 0; i < STATS.length; i++) {
+                Double limit = cfg.slo(op.name(), STATS[i]);
+                if (limit == null) continue;
+                if (Double.isNaN(observed[i]) || observed[i] > limit) {
+                    violations.add(String.format("%s %s %.1f ms > %.0f ms", op.name(), STATS[i], observed[i], limit));
+                }
+            }
+        }
+        System.out.printf("%-14s %8d %7d %8.2f%n", "total", ok, errors, ok / elapsed);
+
+        double errorRate = ok + errors == 0 ? 0 : (double) errors / (ok + errors);
+        double maxErrorRate = cfg.getDouble("slo.error-rate");
+        if (errorRate > maxErrorRate) {
+            violations.add(String.format("error rate %.4f > %.4f", errorRate, maxErrorRate));
+        }
+        return violations;
+    }
+
+    private static void reportJvm(HttpClient http, List<ServiceProcess> services, Map<String, double[]> before,
+                                  Map<String, double[]> after, JvmSampler jvm) {
+        System.out.println();
+        System.out.printf("%-8s %12s %12s %10s %12s %10s%n",
+                "service", "heap max MB", "heap cap MB", "gc pauses", "gc total ms", "gc max ms");
+        for (ServiceProcess s : services) {
+            double cap = s.metric(http, "jvm.memory.max", "area:heap", "VALUE");
+            double[] b = before.get(s.name), a = after.get(s.name);
+            System.out.printf("%-8s %12.1f %12.1f %10.0f %12.1f %10.1f%n", s.name,
+                    jvm.maxHeapBytes.getOrDefault(s.name, Double.NaN) / 1e6, cap / 1e6,
+                    a[0] - b[0], (a[1] - b[1]) * 1000, jvm.maxGcPauseSeconds.getOrDefault(s.name, Double.NaN) * 1000);
+        }
+    }
+
+    /** {@code jvm.gc.pause} count and total seconds per service. */
+    private static Map<String, double[]> gc(HttpClient http, List<ServiceProcess> services) {
+        Map<String, double[]> out = new LinkedHashMap<>();
+        for (ServiceProcess s : services) {
+            out.put(s.name, new double[]{
+                    s.metric(http, "jvm.gc.pause", null, "COUNT"),
+                    s.metric(http, "jvm.gc.pause", null, "TOTAL_TIME")});
+        }
+        return out;
+    }
+
+    private static int pickWeighted(Random rnd, int[] weights, int total) {
+        int r = rnd.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            r -= weights[i];
+            if (r < 0) return i;
+        }
+        return weights.length - 1;
+    }
+
+    private static String pick(Random rnd, List<String> values) {
+        return values.get(rnd.nextInt(values.size()));
+    }
+
+    private static String enc(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private static HttpRequest.Builder get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET();
+    }
+
+    private static HttpRequest.Builder post(String url, Map<String, Object> body) throws JsonProcessingException {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body)));
+    }
+}
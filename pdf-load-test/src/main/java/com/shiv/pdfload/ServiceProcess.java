@@ -0,0 +1,126 @@
+package com.shiv.pdfload;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A service under test: either an already running instance at a base URL, or a module started
+ * with {@code spring-boot:run} on its own port against the generated corpus.
+ */
+final class ServiceProcess implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    final String name;
+    final String baseUrl;
+    private final Process process;   // null for an external instance
+    private final Path log;
+
+    private ServiceProcess(String name, String baseUrl, Process process, Path log) {
+        this.name = name;
+        this.baseUrl = baseUrl;
+        this.process = process;
+        this.log = log;
+    }
+
+    static ServiceProcess external(String name, String baseUrl) {
+        return new ServiceProcess(name, baseUrl.replaceAll("/+$", ""), null, null);
+    }
+
+    static ServiceProcess start(String name, Path module, int port, Path corpus, String jvmArgs) throws IOException {
+        Path work = corpus.toAbsolutePath().resolve(name);
+        String appArgs = String.join(" ",
+                "--server.port=" + port,
+                "--app.pdf.base-path=" + corpus.toAbsolutePath(),
+                "--app.warmup.access-log=" + work.resolve("access-log.tsv"),
+                "--app.jobs.dir=" + work.resolve("jobs"));
+        List<String> cmd = new ArrayList<>();
+        cmd.add(System.getProperty("os.name").toLowerCase().startsWith("windows") ? "mvn.cmd" : "mvn");
+        cmd.add("-q");
+        cmd.add("-f");
+        cmd.add(module.resolve("pom.xml").toAbsolutePath().toString());
+        cmd.add("spring-boot:run");
+        cmd.add("-Dspring-boot.run.arguments=" + appArgs);
+        if (!jvmArgs.isBlank()) cmd.add("-Dspring-boot.run.jvmArguments=" + jvmArgs);
+
+        Files.createDirectories(work);
+        Path log = work.resolve("service.log");
+        Process p = new ProcessBuilder(cmd)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        return new ServiceProcess(name, "http://localhost:" + port, p, log);
+    }
+
+    void awaitReady(HttpClient http, Duration timeout) throws InterruptedException {
+        long until = System.nanoTime() + timeout.toNanos();
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        while (System.nanoTime() < until) {
+            if (process != null && !process.isAlive()) {
+                throw new IllegalStateException(name + " exited during startup, see " + log);
+            }
+            try {
+                if (http.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException(name + " not ready after " + timeout.toSeconds() + " s"
+                + (log == null ? "" : ", see " + log));
+    }
+
+    /**
+     * One statistic of an actuator metric, e.g. {@code jvm.memory.used} with tag {@code area:heap}
+     * and statistic {@code VALUE}; NaN when the metric is unavailable.
+     */
+    double metric(HttpClient http, String metric, String tag, String statistic) {
+        String url = baseUrl + "/actuator/metrics/" + metric
+                + (tag == null ? "" : "?tag=" + URLEncoder.encode(tag, StandardCharsets.UTF_8));
+        try {
+            HttpResponse<String> res = http.send(HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(5)).build(), HttpResponse.BodyHandlers.ofString());
+            if (res.statusCode() != 200) return Double.NaN;
+            for (JsonNode m : JSON.readTree(res.body()).path("measurements")) {
+                if (statistic.equals(m.path("statistic").asText())) return m.path("value").asDouble();
+            }
+        } catch (IOException e) {
+            return Double.NaN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Double.NaN;
+    }
+
+    @Override
+    public void close() {
+        if (process == null) return;
+        // spring-boot:run forks the application JVM, so stop the whole tree
+        process.descendants().forEach(ProcessHandle::destroy);
+        process.destroy();
+        try {
+            if (!process.waitFor(20, TimeUnit.SECONDS)) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
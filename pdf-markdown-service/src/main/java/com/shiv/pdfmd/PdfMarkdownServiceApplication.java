@@ -2,8 +2,10 @@ package com.shiv.pdfmd;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class PdfMarkdownServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(PdfMarkdownServiceApplication.class, args);
@@ -17,7 +17,7 @@ public class CorsConfig {
             .allowedOrigins("http://localhost:5173", "http://127.0.0.1:5173")
             .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
             .allowedHeaders("*")
-            .exposedHeaders("Content-Disposition")
+            .exposedHeaders("Content-Disposition", "Location", "Accept-Ranges", "Content-Range", "X-Partial")
             .allowCredentials(true)
             .maxAge(3600);
       }
@@ -4,14 +4,19 @@ package com.shiv.pdfmd.controller;
 import com.shiv.pdfmd.service.PdfPageImageService;
 import com.shiv.pdfmd.dto.ExtractRequest;
 import com.shiv.pdfmd.dto.ExtractResponse;
+import com.shiv.pdfmd.service.Deadline;
+import com.shiv.pdfmd.service.PageProgress;
 import com.shiv.pdfmd.service.PdfMarkdownService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/extract")
 @RequiredArgsConstructor
@@ -20,18 +25,30 @@ public class ExtractController {
     private final PdfMarkdownService service;
     private final PdfPageImageService imageService; // <-- add this
 
+    @Value("${app.deadline.default-ms:30000}")
+    private long defaultDeadlineMs;
+
     @PostMapping(value = "/markdown", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ExtractResponse extractMarkdown(@Valid @RequestBody ExtractRequest request) {
-        return service.extract(request);
+    public ExtractResponse extractMarkdown(
+            @Valid @RequestBody ExtractRequest request,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
+    ) {
+        return service.extract(request, Deadline.of(deadlineMs, defaultDeadlineMs));
     }
 
     @PostMapping(value = "/markdown/combined", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<String> extractCombined(@Valid @RequestBody ExtractRequest request) {
-        String md = service.extractCombinedMarkdown(request);
+    public ResponseEntity<String> extractCombined(
+            @Valid @RequestBody ExtractRequest request,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
+    ) {
+        StringBuilder md = new StringBuilder();
+        List<Integer> unscanned = service.writeCombinedMarkdown(request, md,
+                Deadline.of(deadlineMs, defaultDeadlineMs), PageProgress.NONE);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"extract.md\"")
+                .header("X-Partial", String.valueOf(!unscanned.isEmpty()))
                 .contentType(MediaType.TEXT_PLAIN)
-                .body(md);
+                .body(md.toString());
     }
 
     // NEW: exact page-as-image
@@ -39,9 +56,10 @@ public class ExtractController {
     public ResponseEntity<byte[]> pageImage(
             @RequestParam String fileName,
             @RequestParam int page,               // 1-based page number
-            @RequestParam(defaultValue = "160") int dpi // 96-200 is fine
+            @RequestParam(defaultValue = "160") int dpi, // 96-200 is fine
+            @RequestHeader(value = Deadline.HEADER, required = false) Long deadlineMs
     ) {
-        byte[] png = imageService.renderPageAsPng(fileName, page, dpi);
+        byte[] png = imageService.renderPageAsPng(fileName, page, dpi, Deadline.of(deadlineMs, defaultDeadlineMs));
         return ResponseEntity.ok()
                 .header(HttpHeaders.CACHE_CONTROL, "no-store")
                 .body(png);
@@ -0,0 +1,86 @@
+package com.shiv.pdfmd.controller;
+
+import com.shiv.pdfmd.dto.ExtractRequest;
+import com.shiv.pdfmd.dto.JobStatus;
+import com.shiv.pdfmd.service.JobService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private static final String TENANT_HEADER = "X-Tenant-Id";
+
+    private final JobService jobs;
+
+    @PostMapping(value = "/markdown", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<JobStatus> submitMarkdown(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @Valid @RequestBody ExtractRequest request
+    ) {
+        return accepted(jobs.submit(tenant, JobService.KIND_MARKDOWN, request));
+    }
+
+    @PostMapping(value = "/combined", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<JobStatus> submitCombined(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @Valid @RequestBody ExtractRequest request
+    ) {
+        return accepted(jobs.submit(tenant, JobService.KIND_COMBINED, request));
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public JobStatus status(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @PathVariable("id") String id
+    ) {
+        return jobs.status(tenant, id);
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @PathVariable("id") String id
+    ) {
+        return jobs.subscribe(tenant, id);
+    }
+
+    // Served as a Resource so Range requests can resume interrupted downloads.
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Resource> result(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @PathVariable("id") String id
+    ) {
+        FileSystemResource body = new FileSystemResource(jobs.result(tenant, id));
+        boolean markdown = jobs.isMarkdown(tenant, id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, markdown ? "inline; filename=\"extract.md\"" : "inline")
+                .contentType(markdown ? MediaType.TEXT_PLAIN : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @DeleteMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public JobStatus cancel(
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenant,
+            @PathVariable("id") String id
+    ) {
+        return jobs.cancel(tenant, id);
+    }
+
+    private static ResponseEntity<JobStatus> accepted(JobStatus status) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + status.getId()))
+                .body(status);
+    }
+}
@@ -1,6 +1,7 @@
 package com.shiv.pdfmd.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 @Data
@@ -9,6 +10,8 @@ public class ExtractRequest {
     private String fileName;
     @NotBlank
     private String query;
+    @Pattern(regexp = "literal|regex|wildcard")
+    private String mode = "literal";   // regex and wildcard queries run on a linear-time automaton
     private boolean caseSensitive = false;
     private int snippetPadding = 60;
 }
@@ -1,5 +1,6 @@
 package com.shiv.pdfmd.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 import java.util.List;
@@ -9,8 +10,12 @@ import java.util.List;
 public class ExtractResponse {
     private String fileName;
     private String query;
+    private String mode;
     private boolean caseSensitive;
     private int totalPages;
     private int matchedPages;
     private List<PageHit> pages;
+    private boolean partial;   // the request deadline expired before every page was scanned
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Integer> unscannedPages;
 }
@@ -0,0 +1,23 @@
+package com.shiv.pdfmd.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobStatus {
+    private String id;
+    private String kind;             // markdown | combined
+    private String state;            // QUEUED | RUNNING | DONE | FAILED | CANCELLED
+    private int pagesDone;
+    private int totalPages;          // 0 until the document is opened
+    private String error;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String resultUrl;        // set once state is DONE
+}
@@ -0,0 +1,84 @@
+package com.shiv.pdfmd.service;
+
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.PageDrawer;
+import org.apache.pdfbox.rendering.PageDrawerParameters;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time budget of one request. Text strippers and renderers built here check it before every
+ * content stream operator, so a pathological page is abandoned mid-stream instead of holding a worker.
+ */
+public final class Deadline {
+
+    public static final String HEADER = "X-Deadline-Ms";
+    public static final Deadline NONE = new Deadline(0);
+
+    private final long expiresAt;   // System.nanoTime(), unused for NONE
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * The header value may shorten the configured default but not extend it, so values of 0 or less
+     * are ignored; a default of 0 or less means no deadline.
+     */
+    public static Deadline of(Long requestedMs, long defaultMs) {
+        long ms = requestedMs == null || requestedMs <= 0 ? defaultMs
+                : defaultMs <= 0 ? requestedMs : Math.min(requestedMs, defaultMs);
+        if (ms <= 0) return NONE;
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+
+    public boolean isExpired() {
+        return this != NONE && System.nanoTime() - expiresAt >= 0;
+    }
+
+    public long remainingNanos() {
+        return this == NONE ? Long.MAX_VALUE : Math.max(0, expiresAt - System.nanoTime());
+    }
+
+    public long remainingMillis() {
+        return this == NONE ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(remainingNanos());
+    }
+
+    /** Throws {@link CancellationException} once the deadline has passed or the thread was interrupted. */
+    public void check() {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("Interrupted");
+        if (isExpired()) throw new CancellationException("Deadline exceeded");
+    }
+
+    public PDFTextStripper textStripper() {
+        return new PDFTextStripper() {
+            @Override
+            protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+                check();
+                super.processOperator(operator, operands);
+            }
+        };
+    }
+
+    public PDFRenderer renderer(PDDocument doc) {
+        return new PDFRenderer(doc) {
+            @Override
+            protected PageDrawer createPageDrawer(PageDrawerParameters parameters) throws IOException {
+                return new PageDrawer(parameters) {
+                    @Override
+                    protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+                        check();
+                        super.processOperator(operator, operands);
+                    }
+                };
+            }
+        };
+    }
+}
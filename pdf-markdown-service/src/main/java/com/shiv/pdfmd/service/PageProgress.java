@@ -0,0 +1,9 @@
+package com.shiv.pdfmd.service;
+
+/** Called after each page so long-running work can report progress. */
+@FunctionalInterface
+public interface PageProgress {
+    PageProgress NONE = (done, total) -> {};
+
+    void pageDone(int done, int total);
+}
@@ -4,6 +4,7 @@ import com.shiv.pdfmd.dto.ExtractRequest;
 import com.shiv.pdfmd.dto.ExtractResponse;
 import com.shiv.pdfmd.dto.PageHit;
 import com.shiv.pdfmd.util.MarkdownUtil;
+import com.shiv.pdfmd.util.QueryPattern;
 import lombok.RequiredArgsConstructor;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -12,11 +13,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CancellationException;
 
 @Service
 @RequiredArgsConstructor
@@ -25,30 +26,35 @@ public class PdfMarkdownService {
     @Value("${app.pdf.base-path}")
     private String pdfBasePath;
 
-    public ExtractResponse extract(ExtractRequest req) {
+    public ExtractResponse extract(ExtractRequest req, Deadline deadline) {
+        return extract(req, deadline, PageProgress.NONE);
+    }
+
+    /** Pages not reached before the deadline are listed in the response, which is then marked partial. */
+    public ExtractResponse extract(ExtractRequest req, Deadline deadline, PageProgress progress) {
         File pdfFile = resolveFile(req.getFileName());
         if (!pdfFile.exists() || !pdfFile.isFile()) {
             throw new IllegalArgumentException("PDF not found: " + pdfFile.getAbsolutePath());
         }
+        QueryPattern pattern = QueryPattern.compile(req.getQuery(), req.getMode(), req.isCaseSensitive());
 
         try (PDDocument doc = Loader.loadPDF(Files.readAllBytes(pdfFile.toPath()))) {
             int totalPages = doc.getNumberOfPages();
-            PDFTextStripper stripper = new PDFTextStripper();
+            PDFTextStripper stripper = deadline.textStripper();
             List<PageHit> hits = new ArrayList<>();
-            Pattern pattern = buildPattern(req.getQuery(), req.isCaseSensitive());
 
-            for (int p = 1; p <= totalPages; p++) {
-                stripper.setStartPage(p);
-                stripper.setEndPage(p);
-                String pageText = stripper.getText(doc);
+            int p = 1;
+            for (; p <= totalPages; p++) {
+                checkInterrupted();
+                String pageText = pageText(stripper, doc, p, deadline);
+                if (pageText == null) break;
 
-                Matcher m = pattern.matcher(pageText);
-                int count = 0;
-                while (m.find()) count++;
+                int count = pattern.count(pageText);
+                progress.pageDone(p, totalPages);
                 if (count == 0) continue;
 
                 String pageMd = MarkdownUtil.toFencedCodeBlock(pageText);
-                String snippetMd = MarkdownUtil.buildSnippet(pageText, req.getQuery(), req.isCaseSensitive(),
+                String snippetMd = MarkdownUtil.buildSnippet(pageText, pattern,
                         Math.max(20, req.getSnippetPadding()));
 
                 hits.add(PageHit.builder()
@@ -62,45 +68,54 @@ public class PdfMarkdownService {
             return ExtractResponse.builder()
                     .fileName(req.getFileName())
                     .query(req.getQuery())
+                    .mode(req.getMode())
                     .caseSensitive(req.isCaseSensitive())
                     .totalPages(totalPages)
                     .matchedPages(hits.size())
                     .pages(hits)
+                    .partial(p <= totalPages)
+                    .unscannedPages(p <= totalPages ? pageRange(p, totalPages) : null)
                     .build();
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to process PDF: " + e.getMessage(), e);
         }
     }
 
-    public String extractCombinedMarkdown(ExtractRequest req) {
+    /**
+     * Streams the combined markdown into {@code md} page by page, so large exports need not fit in memory.
+     * Returns the pages not reached before the deadline, empty when the export is complete.
+     */
+    public List<Integer> writeCombinedMarkdown(ExtractRequest req, Appendable md, Deadline deadline, PageProgress progress) {
         File pdfFile = resolveFile(req.getFileName());
         if (!pdfFile.exists() || !pdfFile.isFile()) {
             throw new IllegalArgumentException("PDF not found: " + pdfFile.getAbsolutePath());
         }
-
-        StringBuilder md = new StringBuilder();
-        md.append("# Extracted Pages for `").append(req.getFileName()).append("`");
-        md.append("> Query: **").append(req.getQuery()).append("**  ");
-        md.append("> Case Sensitive: ").append(req.isCaseSensitive()).append("");
+        QueryPattern pattern = QueryPattern.compile(req.getQuery(), req.getMode(), req.isCaseSensitive());
 
         try (PDDocument doc = Loader.loadPDF(Files.readAllBytes(pdfFile.toPath()))) {
+            md.append("# Extracted Pages for `").append(req.getFileName()).append("`");
+            md.append("> Query: **").append(req.getQuery()).append("**  ");
+            md.append("> Mode: ").append(req.getMode()).append("");
+            md.append("> Case Sensitive: ").append(String.valueOf(req.isCaseSensitive())).append("");
+
             int totalPages = doc.getNumberOfPages();
-            PDFTextStripper stripper = new PDFTextStripper();
-            Pattern pattern = buildPattern(req.getQuery(), req.isCaseSensitive());
+            PDFTextStripper stripper = deadline.textStripper();
             int matched = 0;
 
-            for (int p = 1; p <= totalPages; p++) {
-                stripper.setStartPage(p);
-                stripper.setEndPage(p);
-                String pageText = stripper.getText(doc);
-                Matcher m = pattern.matcher(pageText);
-                int count = 0;
-                while (m.find()) count++;
+            int p = 1;
+            for (; p <= totalPages; p++) {
+                checkInterrupted();
+                String pageText = pageText(stripper, doc, p, deadline);
+                if (pageText == null) break;
+                int count = pattern.count(pageText);
+                progress.pageDone(p, totalPages);
                 if (count == 0) continue;
                 matched++;
 
-                md.append("## Page ").append(p).append(" (matches: ").append(count).append(")");
-                String snippet = MarkdownUtil.buildSnippet(pageText, req.getQuery(), req.isCaseSensitive(),
+                md.append("## Page ").append(String.valueOf(p)).append(" (matches: ").append(String.valueOf(count)).append(")");
+                String snippet = MarkdownUtil.buildSnippet(pageText, pattern,
                         Math.max(20, req.getSnippetPadding()));
                 if (!snippet.isEmpty()) {
                     md.append(snippet).append("");
@@ -108,14 +123,43 @@ public class PdfMarkdownService {
                 md.append(MarkdownUtil.toFencedCodeBlock(pageText)).append("");
             }
 
+            if (p <= totalPages) {
+                md.append("_Deadline reached: pages ").append(String.valueOf(p)).append("-")
+                        .append(String.valueOf(totalPages)).append(" were not scanned._");
+                return pageRange(p, totalPages);
+            }
             if (matched == 0) {
                 md.append("_No matches found._");
             }
+            return List.of();
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to process PDF: " + e.getMessage(), e);
         }
+    }
 
-        return md.toString();
+    /** Text of one page, or null when the deadline expired before or during its extraction. */
+    private static String pageText(PDFTextStripper stripper, PDDocument doc, int page, Deadline deadline) throws IOException {
+        if (deadline.isExpired()) return null;
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        try {
+            return stripper.getText(doc);
+        } catch (CancellationException e) {
+            if (deadline.isExpired()) return null;
+            throw e;
+        }
+    }
+
+    private static List<Integer> pageRange(int from, int to) {
+        List<Integer> pages = new ArrayList<>();
+        for (int p = from; p <= to; p++) pages.add(p);
+        return pages;
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("Extraction cancelled");
     }
 
     private File resolveFile(String name) {
@@ -124,9 +168,4 @@ public class PdfMarkdownService {
         }
         return new File(pdfBasePath, name);
     }
-
-    private Pattern buildPattern(String query, boolean caseSensitive) {
-        String escaped = Pattern.quote(query);
-        return caseSensitive ? Pattern.compile(escaped) : Pattern.compile(escaped, Pattern.CASE_INSENSITIVE);
-    }
 }
@@ -7,12 +7,15 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.util.concurrent.CancellationException;
 
 @Service
 @RequiredArgsConstructor
@@ -21,7 +24,7 @@ public class PdfPageImageService {
     @Value("${app.pdf.base-path}")
     private String pdfBasePath;
 
-    public byte[] renderPageAsPng(String fileName, int page1Based, int dpi) {
+    public byte[] renderPageAsPng(String fileName, int page1Based, int dpi, Deadline deadline) {
         if (fileName.contains("..") || fileName.contains("/") || fileName.contains("\\")) {
             throw new IllegalArgumentException("Invalid file name.");
         }
@@ -38,7 +41,7 @@ public class PdfPageImageService {
             if (page1Based > total) {
                 throw new IllegalArgumentException("Page exceeds total pages (" + total + ")");
             }
-            PDFRenderer renderer = new PDFRenderer(doc);
+            PDFRenderer renderer = deadline.renderer(doc);
             renderer.setSubsamplingAllowed(true);
             BufferedImage bim = renderer.renderImageWithDPI(page1Based - 1, dpi, ImageType.RGB);
 
@@ -46,6 +49,8 @@ public class PdfPageImageService {
                 ImageIO.write(bim, "PNG", baos);
                 return baos.toByteArray();
             }
+        } catch (CancellationException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Render did not finish before the deadline");
         } catch (Exception e) {
             throw new RuntimeException("Failed to render page: " + e.getMessage(), e);
         }
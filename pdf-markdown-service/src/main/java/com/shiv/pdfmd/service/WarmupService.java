@@ -0,0 +1,83 @@
+package com.shiv.pdfmd.service;
+
+import com.shiv.pdfmd.dto.ExtractRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Builds the PDFBox font cache and exercises extraction and rendering before readiness;
+ * Spring Boot only reports ACCEPTING_TRAFFIC once every {@link ApplicationRunner} has returned.
+ * Warm-up stops when its budget runs out, so readiness is never held back longer than that.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WarmupService implements ApplicationRunner {
+
+    private final PdfMarkdownService service;
+    private final PdfPageImageService imageService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.pdf.base-path}")
+    private String pdfBasePath;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.iterations:3}")
+    private int iterations;
+
+    @Value("${app.warmup.budget-ms:120000}")
+    private long budgetMs;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        Deadline budget = Deadline.of(null, budgetMs);
+
+        time("fonts", () -> FontMappers.instance().getFontBoxFont("Helvetica", null));
+
+        String[] pdfs = new File(pdfBasePath).list((dir, name) -> name.toLowerCase().endsWith(".pdf"));
+        if (pdfs != null && pdfs.length > 0) {
+            Arrays.sort(pdfs);
+            ExtractRequest req = new ExtractRequest();
+            req.setFileName(pdfs[0]);
+            req.setQuery("the");
+            time("jit", () -> {
+                for (int i = 0; i < iterations && !budget.isExpired(); i++) {
+                    service.extract(req, budget);
+                    imageService.renderPageAsPng(pdfs[0], 1, 160, budget);
+                }
+            });
+        }
+
+        Duration took = Duration.ofNanos(System.nanoTime() - start);
+        Timer.builder("app.warmup.duration")
+                .description("Time spent warming up before readiness")
+                .register(meterRegistry)
+                .record(took);
+        log.info("Warm-up finished in {} ms", took.toMillis());
+    }
+
+    private void time(String step, Runnable work) {
+        long t0 = System.nanoTime();
+        try {
+            work.run();
+            log.info("Warm-up {} took {} ms", step, (System.nanoTime() - t0) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Warm-up {} failed: {}", step, e.getMessage());
+        }
+    }
+}
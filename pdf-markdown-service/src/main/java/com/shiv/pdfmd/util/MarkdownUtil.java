@@ -7,20 +7,16 @@ public final class MarkdownUtil {
         return "```text\n" + pageText + "\n```";
     }
 
-    public static String buildSnippet(String pageText, String query, boolean caseSensitive, int padChars) {
-        if (query == null || query.isEmpty()) return "";
-        String hay = caseSensitive ? pageText : pageText.toLowerCase();
-        String needle = caseSensitive ? query : query.toLowerCase();
+    public static String buildSnippet(String pageText, QueryPattern query, int padChars) {
+        QueryPattern.Matches m = query.matcher(pageText);
+        if (!m.find()) return "";
 
-        int idx = hay.indexOf(needle);
-        if (idx < 0) return "";
+        int start = Math.max(0, m.start() - padChars);
+        int end   = Math.min(pageText.length(), m.end() + padChars);
 
-        int start = Math.max(0, idx - padChars);
-        int end   = Math.min(pageText.length(), idx + query.length() + padChars);
-
-        String left = pageText.substring(start, idx);
-        String match = pageText.substring(idx, idx + query.length());
-        String right = pageText.substring(idx + query.length(), end);
+        String left = pageText.substring(start, m.start());
+        String match = pageText.substring(m.start(), m.end());
+        String right = pageText.substring(m.end(), end);
 
         String snippet = escapeForInlineMarkdown(left) + "**" + escapeForInlineMarkdown(match) + "**" + escapeForInlineMarkdown(right);
         return "> " + snippet.replace("\n", "\n> ");